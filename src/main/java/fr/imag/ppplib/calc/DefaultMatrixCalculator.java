@@ -42,6 +42,19 @@ public class DefaultMatrixCalculator implements MatrixCalculator
         }
     }
     
+    @Override
+    public double[][] multiply(double[][] a, double[][] b)
+    {
+        try
+        {
+            return new Array2DRowRealMatrix(a).multiply(new Array2DRowRealMatrix(b)).getData();
+        }
+        catch (DimensionMismatchException e)
+        {
+            throw new MatrixCalculatorException("The dimensions of a and b are incompatible.");
+        }
+    }
+    
     @Override
     public double[][] transpose(double[][] a)
     {
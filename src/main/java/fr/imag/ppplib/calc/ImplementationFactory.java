@@ -23,6 +23,7 @@ package fr.imag.ppplib.calc;
 
 import fr.imag.ppplib.calc.opti.LinearProgrammingSolver;
 import fr.imag.ppplib.calc.opti.ACMLinearProgrammingSolver;
+import fr.imag.ppplib.calc.opti.LinearProgrammingMetrics;
 import fr.imag.ppplib.proj.MultithreadsConvexSetProjector;
 import fr.imag.ppplib.proj.ConvexSetProjector;
 
@@ -31,7 +32,7 @@ import fr.imag.ppplib.proj.ConvexSetProjector;
 
 public class ImplementationFactory
 {
-    /** Provide a new instance of the choosen LinearProgrammingSolver implementation.
+    /** Provide a new instance of the choosen LinearProgrammingSolver implementation. By default, it is an ACMLinearProgrammingSolver (an AdaptiveLinearProgrammingSolver, which solves the low dimensions by the algorithm of Seidel, can be chosen by reset).
      ** @return the instance.
      **/
     public static LinearProgrammingSolver getNewLinearProgrammingSolver()
@@ -49,6 +50,22 @@ public class ImplementationFactory
         instance.lpsInstance = impl;
     }
     
+    /** Set the sink of the metrics of all the linear programming solvers, called after each solve (null to disable the metrics, which is the default).
+     ** @param metrics the sink.
+     **/
+    public static void setLinearProgrammingMetrics(LinearProgrammingMetrics metrics)
+    {
+        instance.lpMetrics = metrics;
+    }
+    
+    /** Give the sink of the metrics of the linear programming solvers.
+     ** @return the sink, or null if the metrics are disabled.
+     **/
+    public static LinearProgrammingMetrics getLinearProgrammingMetrics()
+    {
+        return instance.lpMetrics;
+    }
+    
     /** Provide a new instance of the choosen VectorCalculator implementation.
      ** @return the instance.
      **/
@@ -130,4 +147,5 @@ public class ImplementationFactory
     private ProjectionCalculator pcInstance;
     private ConvexSetProjector cspInstance;
     private MatrixCalculator mcInstance;
+    private volatile LinearProgrammingMetrics lpMetrics;
 }
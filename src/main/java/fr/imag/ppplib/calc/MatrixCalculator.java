@@ -33,6 +33,25 @@ public interface MatrixCalculator
      **/
     double[] multiply(double[][] a, double[] x);
     
+    /** Compute and give a*b. By default, a is multiplied by each column of b.
+     ** @param a the first matrix.
+     ** @param b the second matrix.
+     ** @return the result matrix.
+     **/
+    default double[][] multiply(double[][] a, double[][] b)
+    {
+        int n = b.length == 0 ? 0 : b[0].length;
+        double[][] res = new double[a.length][n];
+        double[] col = new double[b.length];
+        for (int j = 0 ; j < n ; j++)
+        {
+            for (int k = 0 ; k < b.length ; k++) col[k] = b[k][j];
+            double[] r = multiply(a, col);
+            for (int i = 0 ; i < a.length ; i++) res[i][j] = r[i];
+        }
+        return res;
+    }
+    
     /** Transpose a.
      ** @param a the matrix.
      ** @return a transposed.
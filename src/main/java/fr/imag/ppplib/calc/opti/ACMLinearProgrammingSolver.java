@@ -30,16 +30,29 @@ import org.apache.commons.math3.optim.linear.LinearConstraintSet;
 import org.apache.commons.math3.optim.linear.Relationship;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import java.util.List;
 import java.util.ArrayList;
 
-/** An implementation of the linear programming solver using the linear programming module of Apache Commons Math.
+/** An implementation of the linear programming solver using the linear programming module of Apache Commons Math. The constraints are frozen in a ConstraintStore at the first solve, and the constraints set of the simplex solver is built once for this store : both are shared by the clones.
  **/
 
 public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
 {    
+    /** Create a new solver without constraint.
+     **/
+    public ACMLinearProgrammingSolver() {}
+    
+    /* Create a new solver with the constraints of a store (shared, without copy) */
+    ACMLinearProgrammingSolver(ConstraintStore store)
+    {
+        holder = new ConstraintsHolder(store);
+        d = store.getDimension();
+    }
+    
     @Override
     public int getDimension()
     {
@@ -50,15 +63,30 @@ public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
     public void addLinearConstraint(double[] a, double b)
     {
         /* The first linear constraint determines the dimension */
-        if (dirList.isEmpty())
+        if (holder.store.size() == 0 && pendingDirs.isEmpty())
             d = a.length;
         /* The nexts have to be controlled */
         else if (a.length != d)
             throw new LinearProgrammingSolverException(ddconstMessage);
-        /* Update the list and the flag */
-        dirList.add(a);
-        valList.add(b);
-        lcListModified = true;
+        /* Update the pending constraints (copy on write : the store may be shared) */
+        pendingIdx.add(null);
+        pendingDirs.add(a);
+        pendingVals.add(b);
+    }
+    
+    @Override
+    public void addLinearConstraint(int dimension, int[] indices, double[] coefficients, double b)
+    {
+        /* The first linear constraint determines the dimension */
+        if (holder.store.size() == 0 && pendingDirs.isEmpty())
+            d = dimension;
+        /* The nexts have to be controlled */
+        else if (dimension != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Update the pending constraints : sparse */
+        pendingIdx.add(indices);
+        pendingDirs.add(coefficients);
+        pendingVals.add(b);
     }
     
     @Override
@@ -67,21 +95,36 @@ public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
         /* Check the dimension of the vectorspace where lives dir */
         if (dir.length != d)
             throw new LinearProgrammingSolverException(dddirMessage);
-        /* Update the constraints set of the simplex solver if modification */
-        if (lcListModified)
+        LinearProgrammingMetrics metrics = ImplementationFactory.getLinearProgrammingMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        /* Evaluation, with the shared constraints set */
+        freeze();
+        PointValuePair res;
+        try
+        {
+            res = solver.optimize(new LinearObjectiveFunction(dir, 0), holder.getConstraintSet(), GoalType.MAXIMIZE);
+        }
+        /* The failures of the linear program are reported as by the other solvers */
+        catch (UnboundedSolutionException e)
+        {
+            throw new LinearProgrammingSolverException(unbMessage);
+        }
+        catch (NoFeasibleSolutionException e)
         {
-            List <LinearConstraint> lcList = new ArrayList <LinearConstraint>();
-            int n = dirList.size();
-            for (int i = 0 ; i < n ; i++) lcList.add(new LinearConstraint(dirList.get(i), Relationship.LEQ, valList.get(i)));
-            lcSet = new LinearConstraintSet(lcList);
+            throw new LinearProgrammingSolverException(infMessage);
         }
-        /* Evaluation */
-        PointValuePair res = solver.optimize(new LinearObjectiveFunction(dir, 0), lcSet, GoalType.MAXIMIZE);
-        /* Update the results and the flags */
+        /* Update the results and the flag */
         point = res.getPoint ();
         value = res.getSecond ();
         evaluated = true;
-        lcListModified = false;
+        if (metrics != null)
+            metrics.solved(this, holder.store.getId(), holder.store.size(), d, getPivots(), false, System.nanoTime() - start);
+    }
+    
+    @Override
+    public int getPivots()
+    {
+        return evaluated ? solver.getIterations() : -1;
     }
     
     @Override
@@ -103,15 +146,17 @@ public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
     @Override
     public void computeChebyshevCenter()
     {
+        freeze();
+        ConstraintStore store = holder.store;
         LinearProgrammingSolver cp = new ACMLinearProgrammingSolver();
-        int n = dirList.size();
+        int n = store.size();
         for (int j = 0 ; j < n ; j++)
         {
-            double[] dir = dirList.get(j);
+            double[] dir = store.getRow(j);
             double[] dirp = new double[d+1];
             for (int i = 0 ; i < d ; i++) dirp[i] = dir[i];
             dirp[d] = vc.norm(dir);
-            cp.addLinearConstraint(dirp, valList.get(j));
+            cp.addLinearConstraint(dirp, store.getValue(j));
         }
         double[] dirRadius = new double[d+1];
         dirRadius[d] = 1.0;
@@ -138,13 +183,24 @@ public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
     @Override
     public List <double[]> getDirections()
     {
-        return dirList;
+        freeze();
+        return holder.store.getDirections();
     }
     
     @Override
     public List <Double> getValues()
     {
-        return valList;
+        freeze();
+        return holder.store.getValues();
+    }
+    
+    /** Give the constraints of this solver (the pending ones are added to the store).
+     ** @return the store, shared by the clones.
+     **/
+    public ConstraintStore getConstraintStore()
+    {
+        freeze();
+        return holder.store;
     }
     
     @Override
@@ -157,25 +213,62 @@ public class ACMLinearProgrammingSolver implements LinearProgrammingSolver
     public LinearProgrammingSolver clone()
     {
         ACMLinearProgrammingSolver res = new ACMLinearProgrammingSolver();
-        /* Update and return */
-        res.dirList = dirList;
-        res.valList = valList;
+        /* Update and return : the clone shares the store and its constraints set */
+        freeze();
+        res.holder = holder;
         res.d = d;
         res.vc = ImplementationFactory.getNewVectorCalculator();
         return res;
     }
     
+    /* Add the pending constraints to the store (a new store, and a new holder, as they may be shared) */
+    private void freeze()
+    {
+        if (pendingDirs.isEmpty())
+            return;
+        holder = new ConstraintsHolder(holder.store.extend(d, pendingIdx, pendingDirs, pendingVals));
+        pendingIdx = new ArrayList <int[]>();
+        pendingDirs = new ArrayList <double[]>();
+        pendingVals = new ArrayList <Double>();
+    }
+    
+    /* A store with the constraints set of the simplex solver, built at the first use (the LinearConstraintSet is immutable, so it can be shared by the threads) */
+    private static class ConstraintsHolder
+    {
+        public ConstraintsHolder(ConstraintStore store)
+        {
+            this.store = store;
+        }
+        
+        public synchronized LinearConstraintSet getConstraintSet()
+        {
+            if (lcSet == null)
+            {
+                List <LinearConstraint> lcList = new ArrayList <LinearConstraint>();
+                int n = store.size();
+                for (int i = 0 ; i < n ; i++) lcList.add(new LinearConstraint(store.getRow(i), Relationship.LEQ, store.getValue(i)));
+                lcSet = new LinearConstraintSet(lcList);
+            }
+            return lcSet;
+        }
+        
+        private final ConstraintStore store;
+        private LinearConstraintSet lcSet;
+    }
+    
     private int d;
-    private LinearConstraintSet lcSet;
-    private List <double[]> dirList = new ArrayList <double[]>();
-    private List <Double> valList = new ArrayList <Double>();
+    private ConstraintsHolder holder = new ConstraintsHolder(new ConstraintStore());
+    private List <int[]> pendingIdx = new ArrayList <int[]>(); // null for the dense constraints
+    private List <double[]> pendingDirs = new ArrayList <double[]>();
+    private List <Double> pendingVals = new ArrayList <Double>();
     private SimplexSolver solver = new SimplexSolver();
     private VectorCalculator vc = ImplementationFactory.getNewVectorCalculator();
     private double[] point, cc;
     private double value, cr;
-    private boolean lcListModified = true;
     private boolean evaluated = false;
     private static final String nyeMessage = "The linear program has never been solved.";
     private static final String dddirMessage = "The direction and the convex polyhedron don't live in the same dimension vectorspaces.";
     private static final String ddconstMessage = "The current constraint and the convex polyhedron don't live in the same dimension vectorspaces.";
+    private static final String unbMessage = "The linear program is unbounded.";
+    private static final String infMessage = "The linear program is infeasible.";
 }
@@ -0,0 +1,291 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** An immutable set of linear constraints a_j.x <= b_j, stored in primitive arrays. As it cannot be modified, it is shared by the clones of a LinearProgrammingSolver (whatever the number of threads, the constraints are in memory once); adding constraints gives a new store, which shares the dense rows of the previous one.
+ ** Each row is stored densely, or in a compressed sparse row layout (the indices and the coefficients of the nonzeros of all the sparse rows in two arrays) if at most half of its coefficients are nonzeros: the memory and the dot products of the sparse rows are proportional to their nonzeros.
+ **/
+
+public final class ConstraintStore
+{
+    /** Create an empty store.
+     **/
+    public ConstraintStore()
+    {
+        d = 0;
+        rows = new double[0][];
+        start = new int[] {0};
+        cols = new int[0];
+        coefs = new double[0];
+        values = new double[0];
+        norms = new double[0];
+    }
+    
+    /* Create a store from its arrays */
+    private ConstraintStore(int d, double[][] rows, int[] start, int[] cols, double[] coefs, double[] values, double[] norms)
+    {
+        this.d = d;
+        this.rows = rows;
+        this.start = start;
+        this.cols = cols;
+        this.coefs = coefs;
+        this.values = values;
+        this.norms = norms;
+    }
+    
+    /** Give a new store with the constraints of this one, followed by the given constraints (the vectors are copied).
+     ** @param a the vectors of the new constraints, of the same dimension.
+     ** @param b the scalars of the new constraints.
+     ** @return the new store.
+     ** @exception LinearProgrammingSolverException thrown if a vector doesn't live in the dimension of the store.
+     **/
+    public ConstraintStore extend(List <double[]> a, List <Double> b)
+    {
+        if (a.isEmpty())
+            return this;
+        List <int[]> indices = new ArrayList <int[]>(a.size());
+        for (int j = 0 ; j < a.size() ; j++) indices.add(null);
+        return extend(rows.length == 0 ? a.get(0).length : d, indices, a, b);
+    }
+    
+    /** Give a new store with the constraints of this one, followed by the given constraints, dense or sparse (the arrays are copied).
+     ** @param dimension the dimension of the vectorspace.
+     ** @param indices for each new constraint, the indices of its nonzero coefficients (distinct), or null if the coefficients are dense.
+     ** @param a for each new constraint, its nonzero coefficients, or all its coefficients if dense.
+     ** @param b the scalars of the new constraints.
+     ** @return the new store.
+     ** @exception LinearProgrammingSolverException thrown if a vector doesn't live in the dimension of the store.
+     **/
+    public ConstraintStore extend(int dimension, List <int[]> indices, List <double[]> a, List <Double> b)
+    {
+        int m = rows.length;
+        int k = a.size();
+        if (k == 0)
+            return this;
+        if (m > 0 && dimension != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Nonzeros of each new row : the sparse ones go to the compressed arrays */
+        int[] nnz = new int[k];
+        int added = 0;
+        for (int j = 0 ; j < k ; j++)
+        {
+            int[] idx = indices.get(j);
+            double[] row = a.get(j);
+            if (idx == null)
+            {
+                if (row.length != dimension)
+                    throw new LinearProgrammingSolverException(ddconstMessage);
+                for (double c : row)
+                    if (c != 0.0)
+                        nnz[j]++;
+            }
+            else
+            {
+                if (idx.length != row.length)
+                    throw new LinearProgrammingSolverException(sparseMessage);
+                for (int i : idx)
+                    if (i < 0 || i >= dimension)
+                        throw new LinearProgrammingSolverException(ddconstMessage);
+                nnz[j] = idx.length;
+            }
+            if (2 * nnz[j] <= dimension)
+                added += nnz[j];
+        }
+        double[][] r = Arrays.copyOf(rows, m + k);
+        int[] st = Arrays.copyOf(start, m + k + 1);
+        int[] cl = Arrays.copyOf(cols, cols.length + added);
+        double[] cf = Arrays.copyOf(coefs, coefs.length + added);
+        double[] v = Arrays.copyOf(values, m + k);
+        double[] n = Arrays.copyOf(norms, m + k);
+        int p = cols.length;
+        for (int j = 0 ; j < k ; j++)
+        {
+            int[] idx = indices.get(j);
+            double[] row = a.get(j);
+            double nr = 0.0;
+            if (2 * nnz[j] <= dimension)
+            {
+                /* Sparse */
+                for (int l = 0 ; l < row.length ; l++)
+                    if (idx != null || row[l] != 0.0)
+                    {
+                        cl[p] = idx == null ? l : idx[l];
+                        cf[p] = row[l];
+                        nr += row[l] * row[l];
+                        p++;
+                    }
+            }
+            else
+            {
+                /* Dense */
+                double[] dense = new double[dimension];
+                for (int l = 0 ; l < row.length ; l++)
+                    dense[idx == null ? l : idx[l]] = row[l];
+                r[m+j] = dense;
+                nr = dot(dense, dense);
+            }
+            st[m+j+1] = p;
+            v[m+j] = b.get(j);
+            n[m+j] = Math.sqrt(nr);
+        }
+        return new ConstraintStore(dimension, r, st, cl, cf, v, n);
+    }
+    
+    /** Give the identifier of this store, unique in the process (the stores are numbered at their creation). It identifies the constraints set of a solver and of its clones, e.g. in the metrics.
+     ** @return the identifier.
+     **/
+    public long getId()
+    {
+        return id;
+    }
+    
+    /** Give the number of constraints.
+     ** @return the number of constraints.
+     **/
+    public int size()
+    {
+        return rows.length;
+    }
+    
+    /** Give the dimension of the vectorspace (0 if there is no constraint).
+     ** @return the dimension.
+     **/
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    /** State if a constraint is stored sparse.
+     ** @param j the index of the constraint.
+     ** @return the statement.
+     **/
+    public boolean isSparse(int j)
+    {
+        return rows[j] == null;
+    }
+    
+    /** Give the number of stored coefficients (the nonzeros of the sparse rows, and all the coefficients of the dense ones).
+     ** @return the number of coefficients.
+     **/
+    public long getStoredCoefficients()
+    {
+        long res = cols.length;
+        for (double[] row : rows)
+            if (row != null)
+                res += d;
+        return res;
+    }
+    
+    /** Give the vector a_j of a constraint. For a dense row, it is shared : it must not be modified; for a sparse row, it is a new vector.
+     ** @param j the index of the constraint.
+     ** @return the vector.
+     **/
+    public double[] getRow(int j)
+    {
+        if (rows[j] != null)
+            return rows[j];
+        double[] res = new double[d];
+        for (int p = start[j] ; p < start[j+1] ; p++) res[cols[p]] = coefs[p];
+        return res;
+    }
+    
+    /** Give the scalar b_j of a constraint.
+     ** @param j the index of the constraint.
+     ** @return the scalar.
+     **/
+    public double getValue(int j)
+    {
+        return values[j];
+    }
+    
+    /** Give the euclidean norm of the vector a_j of a constraint.
+     ** @param j the index of the constraint.
+     ** @return the norm.
+     **/
+    public double getNorm(int j)
+    {
+        return norms[j];
+    }
+    
+    /** Give the dot product a_j.x (on the nonzeros only for a sparse row).
+     ** @param j the index of the constraint.
+     ** @param x a vector.
+     ** @return the dot product.
+     **/
+    public double rowDot(int j, double[] x)
+    {
+        double[] row = rows[j];
+        if (row != null)
+            return dot(row, x);
+        double res = 0;
+        for (int p = start[j] ; p < start[j+1] ; p++) res += coefs[p] * x[cols[p]];
+        return res;
+    }
+    
+    /** Give the list of the vectors of the constraints (unmodifiable, and the vectors must not be modified). The sparse rows are given as new dense vectors.
+     ** @return the list.
+     **/
+    public List <double[]> getDirections()
+    {
+        if (cols.length == 0)
+            return Collections.unmodifiableList(Arrays.asList(rows));
+        List <double[]> res = new ArrayList <double[]>(rows.length);
+        for (int j = 0 ; j < rows.length ; j++) res.add(getRow(j));
+        return Collections.unmodifiableList(res);
+    }
+    
+    /** Give the list of the scalars of the constraints (unmodifiable).
+     ** @return the list.
+     **/
+    public List <Double> getValues()
+    {
+        List <Double> res = new ArrayList <Double>(values.length);
+        for (double v : values) res.add(v);
+        return Collections.unmodifiableList(res);
+    }
+    
+    /* Give the dot product of u and v */
+    private static double dot(double[] u, double[] v)
+    {
+        double res = 0;
+        for (int i = 0 ; i < u.length ; i++) res += u[i] * v[i];
+        return res;
+    }
+    
+    private final long id = ids.incrementAndGet();
+    private final int d;
+    private final double[][] rows; // dense rows (null for the sparse ones)
+    private final int[] start; // the nonzeros of the sparse row j are in [start[j], start[j+1]) in cols and coefs
+    private final int[] cols;
+    private final double[] coefs;
+    private final double[] values;
+    private final double[] norms;
+    private static final AtomicLong ids = new AtomicLong();
+    private static final String ddconstMessage = "The current constraint and the convex polyhedron don't live in the same dimension vectorspaces.";
+    private static final String sparseMessage = "The indices and the coefficients of a sparse constraint don't have the same length.";
+}
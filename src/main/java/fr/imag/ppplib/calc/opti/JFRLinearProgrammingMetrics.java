@@ -0,0 +1,81 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Label;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Timespan;
+
+/** A sink of metrics which emits a Java Flight Recorder event "fr.imag.ppplib.LinearProgramSolve" by solve (when the event is enabled in the recording), with the fields of LinearProgrammingMetrics.solved.
+ **/
+
+public class JFRLinearProgrammingMetrics implements LinearProgrammingMetrics
+{
+    @Override
+    public void solved(LinearProgrammingSolver solver, long polyhedron, int constraints, int dimension, int pivots, boolean warmStarted, long nanos)
+    {
+        SolveEvent e = new SolveEvent();
+        if (!e.shouldCommit())
+            return;
+        e.solver = solver.getClass().getSimpleName();
+        e.polyhedron = polyhedron;
+        e.constraints = constraints;
+        e.dimension = dimension;
+        e.pivots = pivots;
+        e.warmStarted = warmStarted;
+        e.solveTime = nanos;
+        e.commit();
+    }
+    
+    /* The event of a solve */
+    @Name("fr.imag.ppplib.LinearProgramSolve")
+    @Label("Linear Program Solve")
+    @Category({"3plib", "Linear Programming"})
+    @Description("A solve of a linear programming solver")
+    static class SolveEvent extends Event
+    {
+        @Label("Solver")
+        String solver;
+        
+        @Label("Polyhedron")
+        long polyhedron;
+        
+        @Label("Constraints")
+        int constraints;
+        
+        @Label("Dimension")
+        int dimension;
+        
+        @Label("Pivots")
+        int pivots;
+        
+        @Label("Warm Started")
+        boolean warmStarted;
+        
+        @Label("Solve Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long solveTime;
+    }
+}
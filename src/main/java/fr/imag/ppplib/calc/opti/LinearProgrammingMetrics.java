@@ -0,0 +1,39 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+/** Interface for the sinks of the metrics of the linear programming solvers, set by ImplementationFactory.setLinearProgrammingMetrics. A sink is called after each successful solve, by the thread of the solve: it must be thread-safe, and cheap.
+ **/
+
+public interface LinearProgrammingMetrics
+{
+    /** Called after a solve.
+     ** @param solver the solver (its class gives the implementation).
+     ** @param polyhedron the identifier of the constraints set, shared by the clones of the solver (see ConstraintStore.getId).
+     ** @param constraints the number of constraints.
+     ** @param dimension the dimension.
+     ** @param pivots the number of iterations (see LinearProgrammingSolver.getPivots), -1 if unknown.
+     ** @param warmStarted true if the solve started from the state of the previous one.
+     ** @param nanos the wall time of the solve, in nanoseconds.
+     **/
+    void solved(LinearProgrammingSolver solver, long polyhedron, int constraints, int dimension, int pivots, boolean warmStarted, long nanos);
+}
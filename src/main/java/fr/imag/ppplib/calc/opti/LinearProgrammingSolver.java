@@ -39,8 +39,22 @@ public interface LinearProgrammingSolver
      **/
     void addLinearConstraint(double[] a, double b);
     
+    /** Add a sparse linear constraint to the set, of the type a.x <= b, a being given by its nonzero coefficients. By default, a is built as a dense vector.
+     ** @param dimension the dimension of the vector space.
+     ** @param indices the indices of the nonzero coefficients of a (distinct).
+     ** @param coefficients the nonzero coefficients of a.
+     ** @param b a scalar
+     **/
+    default void addLinearConstraint(int dimension, int[] indices, double[] coefficients, double b)
+    {
+        double[] a = new double[dimension];
+        for (int k = 0 ; k < indices.length ; k++) a[indices[k]] = coefficients[k];
+        addLinearConstraint(a, b);
+    }
+    
     /** Solve the linear program.
      ** @param dir a direction.
+     ** @exception LinearProgrammingSolverException thrown if the linear program is unbounded in this direction or infeasible (empty polyhedron), whatever the implementation.
      **/
     void solve(double[] dir);
     
@@ -73,6 +87,22 @@ public interface LinearProgrammingSolver
      **/
     List <Double> getValues();
     
+    /** Give the number of iterations of the last solve (the pivots of a simplex), for the metrics.
+     ** @return the number, -1 if unknown (by default).
+     **/
+    default int getPivots()
+    {
+        return -1;
+    }
+    
+    /** State if the last solve started from the state of the previous one (a basis, or an order of the constraints), for the metrics.
+     ** @return the statement, false by default.
+     **/
+    default boolean isWarmStarted()
+    {
+        return false;
+    }
+    
     /** Give the chebyshev radius of this polyhedron.
      ** @return the chebyshev radius.
      **/
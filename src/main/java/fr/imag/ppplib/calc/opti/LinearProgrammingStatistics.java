@@ -0,0 +1,114 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/** A sink of metrics which accumulates them, in total and by polyhedron (to find the ones which dominate the time of the projections). It can be used by many threads.
+ **/
+
+public class LinearProgrammingStatistics implements LinearProgrammingMetrics
+{
+    @Override
+    public void solved(LinearProgrammingSolver solver, long polyhedron, int constraints, int dimension, int pivots, boolean warmStarted, long nanos)
+    {
+        solves.increment();
+        time.add(nanos);
+        if (pivots > 0)
+            this.pivots.add(pivots);
+        if (warmStarted)
+            warmStarts.increment();
+        timeByPolyhedron.computeIfAbsent(polyhedron, newAdder).add(nanos);
+    }
+    
+    /** Give the number of solves.
+     ** @return the number.
+     **/
+    public long getSolves()
+    {
+        return solves.sum();
+    }
+    
+    /** Give the total number of pivots (the unknown ones are not counted).
+     ** @return the number.
+     **/
+    public long getPivots()
+    {
+        return pivots.sum();
+    }
+    
+    /** Give the number of warm-started solves.
+     ** @return the number.
+     **/
+    public long getWarmStarts()
+    {
+        return warmStarts.sum();
+    }
+    
+    /** Give the total wall time of the solves.
+     ** @return the time in nanoseconds.
+     **/
+    public long getTime()
+    {
+        return time.sum();
+    }
+    
+    /** Give the wall time of the solves by polyhedron (see LinearProgrammingMetrics.solved).
+     ** @return a new map from the identifiers of the polyhedra to their times in nanoseconds.
+     **/
+    public Map <Long, Long> getTimeByPolyhedron()
+    {
+        Map <Long, Long> res = new HashMap<Long, Long>();
+        for (Map.Entry <Long, LongAdder> e : timeByPolyhedron.entrySet())
+            res.put(e.getKey(), e.getValue().sum());
+        return res;
+    }
+    
+    /** Reset all the metrics.
+     **/
+    public void reset()
+    {
+        solves.reset();
+        pivots.reset();
+        warmStarts.reset();
+        time.reset();
+        timeByPolyhedron.clear();
+    }
+    
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder pivots = new LongAdder();
+    private final LongAdder warmStarts = new LongAdder();
+    private final LongAdder time = new LongAdder();
+    private final ConcurrentHashMap <Long, LongAdder> timeByPolyhedron = new ConcurrentHashMap<Long, LongAdder>();
+    private static final Function <Long, LongAdder> newAdder = new Function <Long, LongAdder>()
+    {
+        @Override
+        public LongAdder apply(Long polyhedron)
+        {
+            return new LongAdder();
+        }
+    };
+}
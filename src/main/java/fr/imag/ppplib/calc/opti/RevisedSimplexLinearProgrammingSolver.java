@@ -0,0 +1,587 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+import fr.imag.ppplib.calc.VectorCalculator;
+import fr.imag.ppplib.calc.ImplementationFactory;
+
+import java.util.List;
+import java.util.ArrayList;
+
+/** An implementation of the linear programming solver by a primal simplex on primitive arrays, which keeps its basis from one solve to the next one. A basis is a set of d active constraints (d the dimension) whose intersection is a vertex of the polyhedron, and the inverse of their matrix is updated at each pivot. As the successive directions of the projections are close, the previous optimal vertex is usually optimal or a few pivots away.
+ ** The first vertex is found by an auxiliary problem (if the origin is not feasible) and a crossover to a vertex. The problems which have no vertex (the polyhedron contains a line), and the empty polyhedra, are given to an ACMLinearProgrammingSolver, built once for the constraints and shared by the clones. This solver is opt-in : it is neither the default solver nor a choice of AdaptiveLinearProgrammingSolver, it has to be chosen by ImplementationFactory.resetLinearProgrammingSolver.
+ **/
+
+public class RevisedSimplexLinearProgrammingSolver implements LinearProgrammingSolver
+{
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void addLinearConstraint(double[] a, double b)
+    {
+        /* The first linear constraint determines the dimension */
+        if (store.size() == 0 && pendingDirs.isEmpty())
+            d = a.length;
+        /* The nexts have to be controlled */
+        else if (a.length != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Update the pending constraints (copy on write : the store may be shared) and the flag */
+        pendingIdx.add(null);
+        pendingDirs.add(a);
+        pendingVals.add(b);
+        modified = true;
+    }
+    
+    @Override
+    public void addLinearConstraint(int dimension, int[] indices, double[] coefficients, double b)
+    {
+        /* The first linear constraint determines the dimension */
+        if (store.size() == 0 && pendingDirs.isEmpty())
+            d = dimension;
+        /* The nexts have to be controlled */
+        else if (dimension != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Update the pending constraints : sparse */
+        pendingIdx.add(indices);
+        pendingDirs.add(coefficients);
+        pendingVals.add(b);
+        modified = true;
+    }
+    
+    @Override
+    public void solve(double[] dir)
+    {
+        /* Check the dimension of the vectorspace where lives dir */
+        if (dir.length != d)
+            throw new LinearProgrammingSolverException(dddirMessage);
+        LinearProgrammingMetrics metrics = ImplementationFactory.getLinearProgrammingMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        /* Update the arrays of the constraints if modification : the basis is lost */
+        if (modified)
+        {
+            load();
+            modified = false;
+        }
+        solvePivots = 0;
+        warmStarted = basis != null && !fallbackOnly;
+        /* Evaluation : from the previous basis if any, otherwise by the other solver (for this solve only after a numerical failure : the next one starts from a new vertex) */
+        fallbackUsed = fallbackOnly || !solveNative(dir);
+        if (fallbackUsed)
+        {
+            basis = null;
+            if (fallback == null)
+                fallback = sharedFallback.get();
+            fallback.solve(dir);
+            point = fallback.getPoint();
+            value = fallback.getValue();
+        }
+        else
+        {
+            point = x.clone();
+            value = dot(dir, x);
+        }
+        evaluated = true;
+        /* A solve of the other solver is reported by it, with the same store */
+        if (metrics != null && !fallbackUsed)
+            metrics.solved(this, store.getId(), m, d, getPivots(), warmStarted, System.nanoTime() - start);
+    }
+    
+    @Override
+    public int getPivots()
+    {
+        return fallbackUsed ? fallback.getPivots() : solvePivots;
+    }
+    
+    @Override
+    public boolean isWarmStarted()
+    {
+        return warmStarted;
+    }
+    
+    @Override
+    public double[] getPoint()
+    {
+        if (!evaluated)
+            throw new LinearProgrammingSolverException(nyeMessage);
+        return point;
+    }
+    
+    @Override
+    public double getValue()
+    {
+        if (!evaluated)
+            throw new LinearProgrammingSolverException(nyeMessage);
+        return value;
+    }
+    
+    @Override
+    public void computeChebyshevCenter()
+    {
+        if (modified)
+            load();
+        LinearProgrammingSolver cp = new RevisedSimplexLinearProgrammingSolver();
+        int n = store.size();
+        for (int j = 0 ; j < n ; j++)
+        {
+            double[] dir = store.getRow(j);
+            double[] dirp = new double[d+1];
+            for (int i = 0 ; i < d ; i++) dirp[i] = dir[i];
+            dirp[d] = vc.norm(dir);
+            cp.addLinearConstraint(dirp, store.getValue(j));
+        }
+        double[] dirRadius = new double[d+1];
+        dirRadius[d] = 1.0;
+        cp.solve(dirRadius);
+        double[] res = new double[d];
+        double[] resp = cp.getPoint();
+        for (int i = 0 ; i < d ; i++) res[i] = resp[i];
+        cc = res;
+        cr = cp.getValue();
+    }
+    
+    @Override
+    public double[] getChebyshevCenter()
+    {
+        return cc;
+    }
+    
+    @Override
+    public double getChebyshevRadius()
+    {
+        return cr;
+    }
+    
+    @Override
+    public List <double[]> getDirections()
+    {
+        if (modified)
+            load();
+        return store.getDirections();
+    }
+    
+    @Override
+    public List <Double> getValues()
+    {
+        if (modified)
+            load();
+        return store.getValues();
+    }
+    
+    /** Give the constraints of this solver (the pending ones are added to the store).
+     ** @return the store, shared by the clones.
+     **/
+    public ConstraintStore getConstraintStore()
+    {
+        if (modified)
+            load();
+        return store;
+    }
+    
+    @Override
+    public LinearProgrammingSolver newInstance()
+    {
+        return new RevisedSimplexLinearProgrammingSolver();
+    }
+    
+    @Override
+    public LinearProgrammingSolver clone()
+    {
+        RevisedSimplexLinearProgrammingSolver res = new RevisedSimplexLinearProgrammingSolver();
+        /* Update and return : the clone shares the store, and starts from the current basis */
+        if (modified)
+            load();
+        res.store = store;
+        res.d = d;
+        res.m = m;
+        res.modified = false;
+        res.feasible = feasible;
+        res.fallbackOnly = fallbackOnly;
+        res.sharedFallback = sharedFallback;
+        if (basis != null)
+        {
+            res.basis = basis.clone();
+            res.inBasis = inBasis.clone();
+            res.minv = new double[d][];
+            for (int i = 0 ; i < d ; i++) res.minv[i] = minv[i].clone();
+            res.x = x.clone();
+        }
+        return res;
+    }
+    
+    /* Add the pending constraints to the store (a new store, as it may be shared), and forget the basis */
+    private void load()
+    {
+        store = store.extend(d, pendingIdx, pendingDirs, pendingVals);
+        pendingIdx = new ArrayList <int[]>();
+        pendingDirs = new ArrayList <double[]>();
+        pendingVals = new ArrayList <Double>();
+        m = store.size();
+        modified = false;
+        basis = null;
+        feasible = null;
+        fallback = null;
+        sharedFallback = new SharedFallback(store);
+        fallbackOnly = false;
+    }
+    
+    /* Solve max c.x from the current basis, or from a vertex found by crossover from a feasible point. Return false if the problem has to be given to the other solver : fallbackOnly is set if the polyhedron has no vertex or is empty, otherwise the failure is numerical. */
+    private boolean solveNative(double[] c)
+    {
+        if (basis == null)
+        {
+            if (feasible == null)
+                feasible = feasiblePoint();
+            if (feasible == null || !crossover(feasible, c))
+                return false;
+        }
+        return simplex(c);
+    }
+    
+    /* Give a feasible point : the origin, or the solution of the auxiliary problem max -s, a_j.x - s <= b_j, s >= 0. Return null if the polyhedron seems empty or if the auxiliary problem has no vertex (fallbackOnly is set), or after a numerical failure. */
+    private double[] feasiblePoint()
+    {
+        double s = 0;
+        for (int j = 0 ; j < m ; j++) s = Math.max(s, -store.getValue(j));
+        if (s == 0)
+            return new double[d];
+        RevisedSimplexLinearProgrammingSolver aux = new RevisedSimplexLinearProgrammingSolver();
+        for (int j = 0 ; j < m ; j++)
+        {
+            double[] a = new double[d+1];
+            System.arraycopy(store.getRow(j), 0, a, 0, d);
+            a[d] = -1;
+            aux.addLinearConstraint(a, store.getValue(j));
+        }
+        double[] sPos = new double[d+1];
+        sPos[d] = -1;
+        aux.addLinearConstraint(sPos, 0);
+        aux.load();
+        aux.feasible = new double[d+1];
+        aux.feasible[d] = s;
+        try
+        {
+            if (!aux.solveNative(sPos))
+            {
+                fallbackOnly = aux.fallbackOnly;
+                return null;
+            }
+        }
+        catch (LinearProgrammingSolverException e)
+        {
+            return null;
+        }
+        if (aux.x[d] > eps * (1 + s))
+        {
+            fallbackOnly = true;
+            return null;
+        }
+        double[] res = new double[d];
+        System.arraycopy(aux.x, 0, res, 0, d);
+        return res;
+    }
+    
+    /* Move from the feasible point x0 to a vertex, without decreasing c.x : at each step, the direction is the projection of c (or of a vector of the canonical basis) on the orthogonal of the active constraints, until the next constraint. Return false if there is no vertex (a line in the polyhedron : fallbackOnly is set) or if the active constraints are singular. */
+    private boolean crossover(double[] x0, double[] c)
+    {
+        double[] y = x0.clone();
+        double[][] q = new double[d][];
+        int[] active = new int[d];
+        boolean[] isActive = new boolean[m];
+        double normC = Math.sqrt(dot(c, c));
+        for (int r = 0 ; r < d ; r++)
+        {
+            /* Direction in the orthogonal of the active constraints */
+            double[] u = orthogonal(c, q, r);
+            double normU = Math.sqrt(dot(u, u));
+            if (normU <= eps * normC || normC == 0)
+            {
+                u = null;
+                double best = 0;
+                for (int k = 0 ; k < d ; k++)
+                {
+                    double[] e = new double[d];
+                    e[k] = 1;
+                    double[] v = orthogonal(e, q, r);
+                    double nv = Math.sqrt(dot(v, v));
+                    if (nv > best)
+                    {
+                        best = nv;
+                        u = v;
+                    }
+                }
+                if (dot(c, u) < 0)
+                    for (int i = 0 ; i < d ; i++) u[i] = -u[i];
+                normU = best;
+            }
+            /* Next constraint along u (or -u if c.u = 0) */
+            int k = ratio(y, u, normU, isActive);
+            if (k < 0)
+            {
+                if (dot(c, u) > eps * normC * normU)
+                    throw new LinearProgrammingSolverException(unbMessage);
+                for (int i = 0 ; i < d ; i++) u[i] = -u[i];
+                k = ratio(y, u, normU, isActive);
+                if (k < 0)
+                {
+                    fallbackOnly = true;
+                    return false;
+                }
+            }
+            double t = Math.max(0, (store.getValue(k) - store.rowDot(k, y)) / store.rowDot(k, u));
+            for (int i = 0 ; i < d ; i++) y[i] += t * u[i];
+            /* New active constraint, orthonormalized */
+            double[] v = orthogonal(store.getRow(k), q, r);
+            double nv = Math.sqrt(dot(v, v));
+            if (nv <= eps * store.getNorm(k))
+                return false;
+            for (int i = 0 ; i < d ; i++) v[i] /= nv;
+            q[r] = v;
+            active[r] = k;
+            isActive[k] = true;
+        }
+        basis = active;
+        inBasis = isActive;
+        minv = new double[d][d];
+        return factorize();
+    }
+    
+    /* Maximize c.x from the current basis. Return false if the iterations limit is reached or if the basis becomes singular. The leaving constraint is the one with the most negative multiplier, or the first one (Bland's rule, which doesn't cycle) after several degenerate pivots. */
+    private boolean simplex(double[] c)
+    {
+        int maxIterations = 50 * (m + d);
+        int degenerate = 0;
+        for (int it = 0 ; it < maxIterations ; it++)
+        {
+            if (pivots >= refactorPeriod && !factorize())
+                return false;
+            boolean bland = degenerate > blandThreshold;
+            /* Multipliers of the active constraints : lambda = M^T c */
+            int leave = -1;
+            double best = 0;
+            double normC = Math.sqrt(dot(c, c));
+            for (int i = 0 ; i < d ; i++)
+            {
+                double lambda = dot(minv[i], c);
+                if (lambda < -eps * normC * Math.sqrt(dot(minv[i], minv[i])))
+                {
+                    if (bland ? (leave < 0 || basis[i] < basis[leave]) : lambda < best)
+                    {
+                        best = lambda;
+                        leave = i;
+                    }
+                }
+            }
+            /* Optimal vertex */
+            if (leave < 0)
+                return true;
+            /* Direction u = -m_leave, which keeps the other constraints active, and next constraint */
+            double[] mi = minv[leave];
+            double[] u = new double[d];
+            for (int i = 0 ; i < d ; i++) u[i] = -mi[i];
+            int k = ratio(x, u, Math.sqrt(dot(u, u)), inBasis);
+            if (k < 0)
+                throw new LinearProgrammingSolverException(unbMessage);
+            double t = (store.getValue(k) - store.rowDot(k, x)) / store.rowDot(k, u);
+            if (t <= eps)
+                degenerate++;
+            else
+                degenerate = 0;
+            if (!pivot(leave, k))
+                return false;
+        }
+        return false;
+    }
+    
+    /* Give the first constraint reached from y along u (the smallest index among the ties), -1 if there is none. */
+    private int ratio(double[] y, double[] u, double normU, boolean[] excluded)
+    {
+        int res = -1;
+        double tmin = Double.POSITIVE_INFINITY;
+        for (int j = 0 ; j < m ; j++)
+        {
+            if (excluded[j])
+                continue;
+            double au = store.rowDot(j, u);
+            if (au > eps * store.getNorm(j) * normU)
+            {
+                double t = Math.max(0, (store.getValue(j) - store.rowDot(j, y)) / au);
+                if (t < tmin)
+                {
+                    tmin = t;
+                    res = j;
+                }
+            }
+        }
+        return res;
+    }
+    
+    /* Replace the constraint i of the basis by the constraint k : rank-1 update of the inverse, m'_i = m_i/w_i, m'_j = m_j - w_j m'_i with w = a_k^T M. */
+    private boolean pivot(int i, int k)
+    {
+        double[] w = new double[d];
+        for (int j = 0 ; j < d ; j++) w[j] = store.rowDot(k, minv[j]);
+        if (Math.abs(w[i]) <= eps * store.getNorm(k) * Math.sqrt(dot(minv[i], minv[i])))
+            return false;
+        double[] mi = minv[i];
+        for (int l = 0 ; l < d ; l++) mi[l] /= w[i];
+        for (int j = 0 ; j < d ; j++)
+        {
+            if (j == i)
+                continue;
+            double[] mj = minv[j];
+            for (int l = 0 ; l < d ; l++) mj[l] -= w[j] * mi[l];
+        }
+        inBasis[basis[i]] = false;
+        inBasis[k] = true;
+        basis[i] = k;
+        pivots++;
+        solvePivots++;
+        updateVertex();
+        return true;
+    }
+    
+    /* Compute the inverse of the matrix of the active constraints (Gauss-Jordan with partial pivoting), and the vertex. Return false if it is singular. */
+    private boolean factorize()
+    {
+        double[][] a = new double[d][2*d];
+        for (int i = 0 ; i < d ; i++)
+        {
+            System.arraycopy(store.getRow(basis[i]), 0, a[i], 0, d);
+            a[i][d+i] = 1;
+        }
+        for (int col = 0 ; col < d ; col++)
+        {
+            int p = col;
+            for (int i = col + 1 ; i < d ; i++)
+                if (Math.abs(a[i][col]) > Math.abs(a[p][col]))
+                    p = i;
+            if (Math.abs(a[p][col]) <= eps * store.getNorm(basis[p]))
+                return false;
+            double[] tmp = a[p];
+            a[p] = a[col];
+            a[col] = tmp;
+            double piv = a[col][col];
+            for (int l = 0 ; l < 2*d ; l++) a[col][l] /= piv;
+            for (int i = 0 ; i < d ; i++)
+            {
+                if (i == col || a[i][col] == 0)
+                    continue;
+                double f = a[i][col];
+                for (int l = 0 ; l < 2*d ; l++) a[i][l] -= f * a[col][l];
+            }
+        }
+        /* The column j of the inverse is m_j */
+        for (int j = 0 ; j < d ; j++)
+            for (int l = 0 ; l < d ; l++) minv[j][l] = a[l][d+j];
+        pivots = 0;
+        updateVertex();
+        return true;
+    }
+    
+    /* Compute the vertex of the basis : x = M b_B */
+    private void updateVertex()
+    {
+        if (x == null)
+            x = new double[d];
+        for (int l = 0 ; l < d ; l++) x[l] = 0;
+        for (int j = 0 ; j < d ; j++)
+        {
+            double bj = store.getValue(basis[j]);
+            double[] mj = minv[j];
+            for (int l = 0 ; l < d ; l++) x[l] += bj * mj[l];
+        }
+    }
+    
+    /* Give the component of v orthogonal to the r first (orthonormal) vectors of q */
+    private double[] orthogonal(double[] v, double[][] q, int r)
+    {
+        double[] res = v.clone();
+        for (int k = 0 ; k < r ; k++)
+        {
+            double p = dot(res, q[k]);
+            for (int i = 0 ; i < d ; i++) res[i] -= p * q[k][i];
+        }
+        return res;
+    }
+    
+    /* Give the dot product of u and v */
+    private static double dot(double[] u, double[] v)
+    {
+        double res = 0;
+        for (int i = 0 ; i < u.length ; i++) res += u[i] * v[i];
+        return res;
+    }
+    
+    /* The other solver of a store, shared by the clones : it is built at the first fallback, on the store (without copy of the constraints), and each clone solves with its own clone of it, which shares its constraints set */
+    private static class SharedFallback
+    {
+        public SharedFallback(ConstraintStore store)
+        {
+            this.store = store;
+        }
+        
+        public synchronized LinearProgrammingSolver get()
+        {
+            if (solver == null)
+                solver = new ACMLinearProgrammingSolver(store);
+            return solver.clone();
+        }
+        
+        private final ConstraintStore store;
+        private ACMLinearProgrammingSolver solver;
+    }
+    
+    private int d;
+    private int m;
+    private ConstraintStore store = new ConstraintStore();
+    private List <int[]> pendingIdx = new ArrayList <int[]>(); // null for the dense constraints
+    private List <double[]> pendingDirs = new ArrayList <double[]>();
+    private List <Double> pendingVals = new ArrayList <Double>();
+    private int[] basis; // active constraints of the current vertex, null if none
+    private boolean[] inBasis;
+    private double[][] minv; // columns of the inverse of the matrix of the active constraints
+    private double[] x; // current vertex
+    private double[] feasible;
+    private int pivots = 0; // since the last factorization
+    private int solvePivots = 0; // during the last solve
+    private boolean warmStarted = false;
+    private boolean fallbackOnly = false; // no vertex, or empty polyhedron : every solve is given to the other solver, until the constraints are modified
+    private boolean fallbackUsed = false; // the last solve has been given to the other solver
+    private SharedFallback sharedFallback;
+    private LinearProgrammingSolver fallback; // own clone of the shared one
+    private VectorCalculator vc = ImplementationFactory.getNewVectorCalculator();
+    private double[] point, cc;
+    private double value, cr;
+    private boolean modified = true;
+    private boolean evaluated = false;
+    private static final double eps = 1e-9;
+    private static final int refactorPeriod = 50;
+    private static final int blandThreshold = 10;
+    private static final String nyeMessage = "The linear program has never been solved.";
+    private static final String unbMessage = "The linear program is unbounded.";
+    private static final String dddirMessage = "The direction and the convex polyhedron don't live in the same dimension vectorspaces.";
+    private static final String ddconstMessage = "The current constraint and the convex polyhedron don't live in the same dimension vectorspaces.";
+}
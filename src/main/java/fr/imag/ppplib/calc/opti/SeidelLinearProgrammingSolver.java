@@ -0,0 +1,494 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.opti;
+
+import fr.imag.ppplib.calc.ImplementationFactory;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** An implementation of the linear programming solver for the low dimensions, by the randomized incremental algorithm of Seidel: the constraints are added in a random order, and when the current optimum violates one, the problem is solved again in one dimension less on its hyperplane. For a random order, the expected time is in O(d! m) for m constraints in dimension d, so it is intended for the low dimensions (see AdaptiveLinearProgrammingSolver).
+ ** The order is a new random permutation at each modification of the constraints. Then, as a heuristic for the next solves, each violated constraint is moved to the front of the order: when the directions are close, the first constraints give the optimum, and the others are only checked; the expected time is no longer guaranteed for these solves.
+ ** The problem is bounded by a large box: if its optimum touches the box, it is solved again in a box twice larger, and if the optimum increases, the program (unbounded, or whose optimum is beyond the box) is given to an ACMLinearProgrammingSolver. All the arrays are allocated once by dimension level, and the normalised constraints in random order are shared by the clones.
+ **/
+
+public class SeidelLinearProgrammingSolver implements LinearProgrammingSolver
+{
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void addLinearConstraint(double[] a, double b)
+    {
+        /* The first linear constraint determines the dimension */
+        if (store.size() == 0 && pendingDirs.isEmpty())
+            d = a.length;
+        /* The nexts have to be controlled */
+        else if (a.length != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Update the pending constraints (copy on write : the store may be shared) and the flag */
+        pendingIdx.add(null);
+        pendingDirs.add(a);
+        pendingVals.add(b);
+        modified = true;
+    }
+    
+    @Override
+    public void addLinearConstraint(int dimension, int[] indices, double[] coefficients, double b)
+    {
+        /* The first linear constraint determines the dimension */
+        if (store.size() == 0 && pendingDirs.isEmpty())
+            d = dimension;
+        /* The nexts have to be controlled */
+        else if (dimension != d)
+            throw new LinearProgrammingSolverException(ddconstMessage);
+        /* Update the pending constraints : sparse */
+        pendingIdx.add(indices);
+        pendingDirs.add(coefficients);
+        pendingVals.add(b);
+        modified = true;
+    }
+    
+    @Override
+    public void solve(double[] dir)
+    {
+        /* Check the dimension of the vectorspace where lives dir */
+        if (dir.length != d)
+            throw new LinearProgrammingSolverException(dddirMessage);
+        LinearProgrammingMetrics metrics = ImplementationFactory.getLinearProgrammingMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (modified)
+            load();
+        warmStarted = as != null && as.length == d + 1;
+        if (!warmStarted)
+            allocate();
+        steps = 0;
+        System.arraycopy(dir, 0, cs[d], 0, d);
+        box = rows.box;
+        if (!solveLevel(d, rows.a.length, rows.a, rows.b, order))
+            throw new LinearProgrammingSolverException(infMessage);
+        double[] x = xs[d];
+        value = dot(dir, x);
+        /* The box is reached : larger box, to check if the optimum increases */
+        if (onBox(x))
+        {
+            box = 2.0 * rows.box;
+            System.arraycopy(dir, 0, cs[d], 0, d);
+            if (!solveLevel(d, rows.a.length, rows.a, rows.b, order))
+                throw new LinearProgrammingSolverException(infMessage);
+            double v = dot(dir, xs[d]);
+            /* It increases : the program is unbounded or its optimum is beyond the box, it is given to the other solver */
+            if (v > value + eps * (Math.abs(value) + 1.0))
+            {
+                if (fallback == null)
+                    fallback = new ACMLinearProgrammingSolver(store);
+                fallback.solve(dir);
+                point = fallback.getPoint();
+                value = fallback.getValue();
+                evaluated = true;
+                /* Reported by the other solver, with the same store */
+                return;
+            }
+            value = v;
+        }
+        point = xs[d].clone();
+        evaluated = true;
+        if (metrics != null)
+            metrics.solved(this, store.getId(), store.size(), d, steps, warmStarted, System.nanoTime() - start);
+    }
+    
+    /** Give the number of violated constraints during the last solve, in all the dimension levels.
+     ** @return the number.
+     **/
+    @Override
+    public int getPivots()
+    {
+        return steps;
+    }
+    
+    @Override
+    public boolean isWarmStarted()
+    {
+        return warmStarted;
+    }
+    
+    @Override
+    public double[] getPoint()
+    {
+        if (!evaluated)
+            throw new LinearProgrammingSolverException(nyeMessage);
+        return point;
+    }
+    
+    @Override
+    public double getValue()
+    {
+        if (!evaluated)
+            throw new LinearProgrammingSolverException(nyeMessage);
+        return value;
+    }
+    
+    @Override
+    public void computeChebyshevCenter()
+    {
+        if (modified)
+            load();
+        LinearProgrammingSolver cp = new SeidelLinearProgrammingSolver();
+        int n = store.size();
+        for (int j = 0 ; j < n ; j++)
+        {
+            double[] dir = store.getRow(j);
+            double[] dirp = new double[d+1];
+            for (int i = 0 ; i < d ; i++) dirp[i] = dir[i];
+            dirp[d] = store.getNorm(j);
+            cp.addLinearConstraint(dirp, store.getValue(j));
+        }
+        double[] dirRadius = new double[d+1];
+        dirRadius[d] = 1.0;
+        cp.solve(dirRadius);
+        double[] res = new double[d];
+        double[] resp = cp.getPoint();
+        for (int i = 0 ; i < d ; i++) res[i] = resp[i];
+        cc = res;
+        cr = cp.getValue();
+    }
+    
+    @Override
+    public double[] getChebyshevCenter()
+    {
+        return cc;
+    }
+    
+    @Override
+    public double getChebyshevRadius()
+    {
+        return cr;
+    }
+    
+    @Override
+    public List <double[]> getDirections()
+    {
+        if (modified)
+            load();
+        return store.getDirections();
+    }
+    
+    @Override
+    public List <Double> getValues()
+    {
+        if (modified)
+            load();
+        return store.getValues();
+    }
+    
+    /** Give the constraints of this solver (the pending ones are added to the store).
+     ** @return the store, shared by the clones.
+     **/
+    public ConstraintStore getConstraintStore()
+    {
+        if (modified)
+            load();
+        return store;
+    }
+    
+    @Override
+    public LinearProgrammingSolver newInstance()
+    {
+        return new SeidelLinearProgrammingSolver();
+    }
+    
+    @Override
+    public LinearProgrammingSolver clone()
+    {
+        SeidelLinearProgrammingSolver res = new SeidelLinearProgrammingSolver();
+        /* Update and return : the clone shares the store and the normalised constraints */
+        if (modified)
+            load();
+        res.store = store;
+        res.rows = rows;
+        if (fallback != null)
+            res.fallback = fallback.clone();
+        res.d = d;
+        res.modified = false;
+        return res;
+    }
+    
+    /* Add the pending constraints to the store (a new store, as it may be shared), and build the normalised constraints in a random order. */
+    private void load()
+    {
+        store = store.extend(d, pendingIdx, pendingDirs, pendingVals);
+        pendingIdx = new ArrayList <int[]>();
+        pendingDirs = new ArrayList <double[]>();
+        pendingVals = new ArrayList <Double>();
+        modified = false;
+        int m = store.size();
+        int[] order = new int[m];
+        for (int j = 0 ; j < m ; j++) order[j] = j;
+        Random rnd = new Random();
+        for (int j = m - 1 ; j > 0 ; j--)
+        {
+            int k = rnd.nextInt(j + 1);
+            int t = order[j];
+            order[j] = order[k];
+            order[k] = t;
+        }
+        double[][] a = new double[m][];
+        double[] b = new double[m];
+        double max = 0.0;
+        int n = 0;
+        for (int j = 0 ; j < m ; j++)
+        {
+            int o = order[j];
+            double norm = store.getNorm(o);
+            /* 0 <= b : always satisfied, or the problem is infeasible */
+            if (norm == 0.0)
+            {
+                if (store.getValue(o) < 0.0)
+                    max = Double.NaN;
+                continue;
+            }
+            double[] r = new double[d];
+            double[] row = store.getRow(o);
+            for (int i = 0 ; i < d ; i++) r[i] = row[i] / norm;
+            a[n] = r;
+            b[n] = store.getValue(o) / norm;
+            max = Math.max(max, Math.abs(b[n]));
+            n++;
+        }
+        if (n < m)
+        {
+            double[][] ta = new double[n][];
+            double[] tb = new double[n];
+            System.arraycopy(a, 0, ta, 0, n);
+            System.arraycopy(b, 0, tb, 0, n);
+            a = ta;
+            b = tb;
+        }
+        if (Double.isNaN(max))
+        {
+            /* An infeasible constraint 0 <= b < 0 first */
+            a = new double[][] {new double[d]};
+            b = new double[] {-1.0};
+        }
+        rows = new Rows(a, b, boxFactor * (1.0 + max));
+        as = null;
+        fallback = null;
+    }
+    
+    /* Allocate the arrays of each dimension level (the constraints of the lower levels grow when it is necessary). */
+    private void allocate()
+    {
+        order = new int[rows.a.length];
+        for (int j = 0 ; j < order.length ; j++) order[j] = j;
+        as = new double[d+1][][];
+        bs = new double[d+1][];
+        cs = new double[d+1][];
+        xs = new double[d+1][];
+        for (int k = 1 ; k <= d ; k++)
+        {
+            as[k] = new double[0][];
+            bs[k] = new double[0];
+            cs[k] = new double[k];
+            xs[k] = new double[k];
+        }
+    }
+    
+    /* Make sure that the level k can receive n constraints. */
+    private void ensureCapacity(int k, int n)
+    {
+        if (as[k].length >= n)
+            return;
+        int cap = Math.max(n, 2 * as[k].length);
+        double[][] na = new double[cap][];
+        System.arraycopy(as[k], 0, na, 0, as[k].length);
+        for (int j = as[k].length ; j < cap ; j++) na[j] = new double[k];
+        double[] nb = new double[cap];
+        System.arraycopy(bs[k], 0, nb, 0, bs[k].length);
+        as[k] = na;
+        bs[k] = nb;
+    }
+    
+    /* Solve max cs[k].x on the n first constraints a.x <= b in dimension k (in the order idx if not null), and in the box for the coordinates. Return false if it is infeasible, otherwise the solution is in xs[k]. */
+    private boolean solveLevel(int k, int n, double[][] a, double[] b, int[] idx)
+    {
+        double[] c = cs[k];
+        double[] x = xs[k];
+        /* Dimension 1 : intersection of intervals */
+        if (k == 1)
+        {
+            double lo = -box;
+            double hi = box;
+            for (int j = 0 ; j < n ; j++)
+            {
+                int r = idx == null ? j : idx[j];
+                double h = a[r][0];
+                if (h > tiny)
+                    hi = Math.min(hi, b[r] / h);
+                else if (h < -tiny)
+                    lo = Math.max(lo, b[r] / h);
+                else if (b[r] < -eps * (1.0 + Math.abs(b[r])))
+                    return false;
+            }
+            if (lo > hi)
+            {
+                if (lo - hi > eps * (1.0 + Math.abs(lo) + Math.abs(hi)))
+                    return false;
+                lo = hi = 0.5 * (lo + hi);
+            }
+            x[0] = c[0] >= 0.0 ? hi : lo;
+            return true;
+        }
+        /* Optimum of the box, then the constraints one by one */
+        for (int i = 0 ; i < k ; i++)
+            x[i] = c[i] >= 0.0 ? box : -box;
+        for (int j = 0 ; j < n ; j++)
+        {
+            int r = idx == null ? j : idx[j];
+            double[] h = a[r];
+            double bj = b[r];
+            double s = 0.0;
+            double t = Math.abs(bj);
+            for (int i = 0 ; i < k ; i++)
+            {
+                s += h[i] * x[i];
+                t += Math.abs(h[i] * x[i]);
+            }
+            if (s <= bj + eps * t)
+                continue;
+            /* Violated : the optimum is on the hyperplane h.x = b_j, where x_p is eliminated */
+            steps++;
+            int p = 0;
+            for (int i = 1 ; i < k ; i++)
+                if (Math.abs(h[i]) > Math.abs(h[p]))
+                    p = i;
+            if (Math.abs(h[p]) <= tiny)
+                return false;
+            ensureCapacity(k - 1, j + 2);
+            double[][] sa = as[k-1];
+            double[] sb = bs[k-1];
+            double hp = h[p];
+            /* The box of x_p : x_p <= box and -x_p <= box */
+            eliminate(null, h, p, k, -1.0 / hp, sa[0]);
+            sb[0] = box - bj / hp;
+            eliminate(null, h, p, k, 1.0 / hp, sa[1]);
+            sb[1] = box + bj / hp;
+            /* The previous constraints and the objective */
+            for (int l = 0 ; l < j ; l++)
+            {
+                int rl = idx == null ? l : idx[l];
+                double f = a[rl][p] / hp;
+                eliminate(a[rl], h, p, k, -f, sa[l+2]);
+                sb[l+2] = b[rl] - f * bj;
+            }
+            eliminate(c, h, p, k, -c[p] / hp, cs[k-1]);
+            if (!solveLevel(k - 1, j + 2, sa, sb, null))
+                return false;
+            /* Back in dimension k */
+            double[] y = xs[k-1];
+            double v = bj;
+            for (int i = 0, q = 0 ; i < k ; i++)
+                if (i != p)
+                {
+                    x[i] = y[q++];
+                    v -= h[i] * x[i];
+                }
+            x[p] = v / hp;
+            /* Move to front : the constraints of the optimum come first at the next solve (whose direction is usually close) */
+            if (idx != null)
+            {
+                System.arraycopy(idx, 0, idx, 1, j);
+                idx[0] = r;
+            }
+        }
+        return true;
+    }
+    
+    /* res = u + f.h without their coordinate p (u = 0 if null). */
+    private static void eliminate(double[] u, double[] h, int p, int k, double f, double[] res)
+    {
+        for (int i = 0, q = 0 ; i < k ; i++)
+            if (i != p)
+                res[q++] = (u == null ? 0.0 : u[i]) + f * h[i];
+    }
+    
+    /* State if a coordinate of x is on the box. */
+    private boolean onBox(double[] x)
+    {
+        for (int i = 0 ; i < d ; i++)
+            if (Math.abs(x[i]) >= (1.0 - 1e-6) * box)
+                return true;
+        return false;
+    }
+    
+    private static double dot(double[] u, double[] v)
+    {
+        double s = 0;
+        for (int i = 0 ; i < u.length ; i++) s += u[i] * v[i];
+        return s;
+    }
+    
+    /* Normalised constraints in random order, and the half-size of the box (shared by the clones). */
+    private static final class Rows
+    {
+        public Rows(double[][] a, double[] b, double box)
+        {
+            this.a = a;
+            this.b = b;
+            this.box = box;
+        }
+        
+        private final double[][] a;
+        private final double[] b;
+        private final double box;
+    }
+    
+    private int d;
+    private ConstraintStore store = new ConstraintStore();
+    private List <int[]> pendingIdx = new ArrayList <int[]>(); // null for the dense constraints
+    private List <double[]> pendingDirs = new ArrayList <double[]>();
+    private List <Double> pendingVals = new ArrayList <Double>();
+    private Rows rows;
+    private LinearProgrammingSolver fallback; // for the programs whose optimum is beyond the box
+    private int[] order; // order of the constraints at the first level (move to front)
+    private double[][][] as; // constraints of each dimension level
+    private double[][] bs;
+    private double[][] cs; // objective of each dimension level
+    private double[][] xs; // solution of each dimension level
+    private double box;
+    private int steps; // violated constraints during the last solve
+    private boolean warmStarted;
+    private double[] point, cc;
+    private double value, cr;
+    private boolean modified = true;
+    private boolean evaluated = false;
+    private static final double eps = 1e-9;
+    private static final double tiny = 1e-12;
+    private static final double boxFactor = 1e6;
+    private static final String nyeMessage = "The linear program has never been solved.";
+    private static final String infMessage = "The linear program is infeasible.";
+    private static final String dddirMessage = "The direction and the convex polyhedron don't live in the same dimension vectorspaces.";
+    private static final String ddconstMessage = "The current constraint and the convex polyhedron don't live in the same dimension vectorspaces.";
+}
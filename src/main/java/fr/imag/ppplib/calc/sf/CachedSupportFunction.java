@@ -0,0 +1,190 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+/** A SupportFunction which keeps the evaluations of another one in a SupportCache, keyed on the normalized direction: the same direction, or a positive multiple of it, is evaluated only once (for instance the directions of the axes of the planes which share a vector). The clones share the cache, so the evaluations made by a thread are available to the others.
+ **/
+
+public class CachedSupportFunction implements SupportFunction
+{
+    /** Create a new CachedSupportFunction with its own cache.
+     ** @param sf the support function of the convex set.
+     ** @param capacity the maximum number of directions kept.
+     **/
+    public CachedSupportFunction(SupportFunction sf, int capacity)
+    {
+        this(sf, new SupportCache(capacity));
+    }
+    
+    /** Create a new CachedSupportFunction with a given cache (which must contain only evaluations of the same convex set).
+     ** @param sf the support function of the convex set.
+     ** @param cache the cache.
+     **/
+    public CachedSupportFunction(SupportFunction sf, SupportCache cache)
+    {
+        this(sf, cache, false);
+    }
+    
+    /** Create a new CachedSupportFunction with a given cache, which may be read only (e.g. filled beforehand with the directions which are shared, so that the other evaluations don't evict them).
+     ** @param sf the support function of the convex set.
+     ** @param cache the cache.
+     ** @param readOnly true if the evaluations are not put in the cache.
+     **/
+    public CachedSupportFunction(SupportFunction sf, SupportCache cache, boolean readOnly)
+    {
+        this.sf = sf;
+        this.cache = cache;
+        this.readOnly = readOnly;
+        d = sf.getDimension();
+        supportVector = new double[d];
+        u = new double[d];
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        double norm = normalize(dir, u);
+        /* The zero direction is not cached */
+        if (norm == 0)
+        {
+            sf.evaluate(dir);
+            supportValue = sf.getSupportValue();
+            System.arraycopy(sf.getSupportVector(), 0, supportVector, 0, d);
+        }
+        else
+        {
+            double value = cache.lookup(u, supportVector);
+            if (Double.isNaN(value))
+            {
+                sf.evaluate(dir);
+                supportValue = sf.getSupportValue();
+                System.arraycopy(sf.getSupportVector(), 0, supportVector, 0, d);
+                if (!readOnly)
+                    cache.store(u, supportValue / norm, supportVector);
+            }
+            else
+                supportValue = value * norm;
+        }
+        
+        /* Flag update */
+        evaluated = true;
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        /* Lookup of each direction, then batch evaluation of the missing ones */
+        if (missing == null || missing.length < n)
+        {
+            missing = new int[n];
+            missDirs = new double[n][];
+            missValues = new double[n];
+            missVectors = new double[n][d];
+        }
+        int m = 0;
+        for (int i = 0 ; i < n ; i++)
+        {
+            double norm = normalize(dirs[i], u);
+            double value = norm == 0 ? Double.NaN : cache.lookup(u, vectors[i]);
+            if (Double.isNaN(value))
+            {
+                missing[m] = i;
+                missDirs[m++] = dirs[i];
+            }
+            else
+                values[i] = value * norm;
+        }
+        if (m == 0)
+            return;
+        sf.evaluate(missDirs, m, missValues, missVectors);
+        for (int k = 0 ; k < m ; k++)
+        {
+            int i = missing[k];
+            values[i] = missValues[k];
+            System.arraycopy(missVectors[k], 0, vectors[i], 0, d);
+            double norm = normalize(dirs[i], u);
+            if (norm != 0 && !readOnly)
+                cache.store(u, values[i] / norm, vectors[i]);
+        }
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportVector.clone();
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    /** Give the cache of this SupportFunction (shared by its clones).
+     ** @return the cache.
+     **/
+    public SupportCache getCache()
+    {
+        return cache;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        return new CachedSupportFunction(sf.clone(), cache, readOnly);
+    }
+    
+    /* Write dir/|dir| in u, and return |dir| */
+    private static double normalize(double[] dir, double[] u)
+    {
+        double s = 0;
+        for (double x : dir) s += x*x;
+        double norm = Math.sqrt(s);
+        if (norm != 0)
+            for (int i = 0 ; i < dir.length ; i++) u[i] = dir[i] / norm;
+        return norm;
+    }
+    
+    private final SupportFunction sf;
+    private final SupportCache cache;
+    private final boolean readOnly;
+    private final int d;
+    private double supportValue;
+    private final double[] supportVector;
+    private final double[] u; // buffer for the normalized direction
+    private int[] missing; // buffers for the batch evaluations
+    private double[][] missDirs;
+    private double[] missValues;
+    private double[][] missVectors;
+    private boolean evaluated = false;
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
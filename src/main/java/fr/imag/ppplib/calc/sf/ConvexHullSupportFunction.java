@@ -73,6 +73,30 @@ public class ConvexHullSupportFunction implements SupportFunction
         evaluated = true;
     }
     
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        /* Batch evaluation of each SupportFunction, and maximum searching for each direction */
+        if (setValues == null || setValues.length < n)
+        {
+            setValues = new double[n];
+            setVectors = new double[n][d];
+        }
+        for (int i = 0 ; i < n ; i++) values[i] = Double.NEGATIVE_INFINITY;
+        for (SupportFunction sf : convSets)
+        {
+            sf.evaluate(dirs, n, setValues, setVectors);
+            for (int i = 0 ; i < n ; i++)
+            {
+                if (setValues[i] > values[i])
+                {
+                    values[i] = setValues[i];
+                    System.arraycopy(setVectors[i], 0, vectors[i], 0, d);
+                }
+            }
+        }
+    }
+    
     @Override
     public double[] getSupportVector()
     {
@@ -101,6 +125,8 @@ public class ConvexHullSupportFunction implements SupportFunction
     private List <SupportFunction> convSets;
     private double supportValue;
     private double[] supportVector;
+    private double[] setValues; // buffers for the batch evaluations
+    private double[][] setVectors;
     private boolean evaluated = false;
     private static final String nsvsMessage = "A convex set of the given list doesn't live in the same vectorspace than the others.";
     private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
@@ -23,10 +23,21 @@ package fr.imag.ppplib.calc.sf;
 
 import fr.imag.ppplib.calc.opti.LinearProgrammingSolver;
 import fr.imag.ppplib.calc.ImplementationFactory;
+import fr.imag.ppplib.calc.VectorCalculator;
 
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /** An implementation of the SupportFunction for a convex polyhedron in H-representation.
+ ** The axis-aligned constraints are gathered in a box when they are added. A bounded box without other constraints is evaluated in closed form; otherwise, the constraints which are redundant with the box are removed from the linear programs at the first evaluation. The reduced programs, as the presolved ones, are solved by a separate solver : the constraints given by getDirections and getValues are always the ones added.
  **/
 
 public class ConvexPolyhedronSupportFunction implements SupportFunction
@@ -38,6 +49,224 @@ public class ConvexPolyhedronSupportFunction implements SupportFunction
     public void addLinearConstraint(double[] a, double b)
     {
         lps.addLinearConstraint(a, b);
+        int k = -1;
+        for (int i = 0 ; i < a.length ; i++)
+            if (a[i] != 0.0)
+                k = k == -1 ? i : -2;
+        modified(a.length, k, k < 0 ? 0.0 : a[k], b);
+    }
+    
+    /** Add a sparse linear constraint to the set, of the type a.x <= b, a being given by its nonzero coefficients (the solver stores it sparse if it can).
+     ** @param dimension the dimension of the vector space.
+     ** @param indices the indices of the nonzero coefficients of a (distinct).
+     ** @param coefficients the nonzero coefficients of a.
+     ** @param b a scalar
+     **/
+    public void addLinearConstraint(int dimension, int[] indices, double[] coefficients, double b)
+    {
+        lps.addLinearConstraint(dimension, indices, coefficients, b);
+        int k = -1;
+        for (int i = 0 ; i < indices.length ; i++)
+            if (coefficients[i] != 0.0)
+                k = k == -1 ? i : -2;
+        modified(dimension, k < 0 ? k : indices[k], k < 0 ? 0.0 : coefficients[k], b);
+    }
+    
+    /** State if this polyhedron is a bounded box (possibly after the removal of the constraints which are redundant with its axis-aligned ones), evaluated in closed form.
+     ** @return the statement.
+     **/
+    public boolean isBox()
+    {
+        return prepareBox();
+    }
+    
+    /** Choose how the polyhedron is evaluated. With VERTICES, the vertices are computed at the first evaluation and each evaluation is a scan of them. With AUTOMATIC, they are used only if the polyhedron is bounded and if their number is lower than the cost of a simplex (about the square of the dimension times the number of constraints), the linear programming being used otherwise. By default, it is LP.
+     ** @param strategy the strategy.
+     **/
+    public void setEvaluationStrategy(EvaluationStrategy strategy)
+    {
+        this.strategy = strategy;
+    }
+    
+    /** Give the evaluation strategy.
+     ** @return the strategy.
+     **/
+    public EvaluationStrategy getEvaluationStrategy()
+    {
+        return strategy;
+    }
+    
+    /** Compute the vertices of this polyhedron, by double description (at most once until the constraints set is modified).
+     ** @exception SupportFunctionException if the polyhedron is unbounded or empty.
+     **/
+    public void computeVertices()
+    {
+        /* The result is kept, even if there is no vertex, unless the enumeration has been stopped by a limit */
+        if (!verticesComputed || vertices == null && verticesLimited)
+        {
+            vertices = VertexEnumerator.enumerate(lps.getDirections(), lps.getValues(), lps.getDimension(), Integer.MAX_VALUE);
+            verticesComputed = true;
+            verticesLimited = false;
+        }
+        if (vertices == null)
+            throw new SupportFunctionException(nvMessage);
+    }
+    
+    /** Give the vertices of this polyhedron.
+     ** @return the list of vertices, or null if they have not been computed.
+     **/
+    public List <double[]> getVertices()
+    {
+        if (vertices == null)
+            return null;
+        int d = lps.getDimension();
+        List <double[]> res = new ArrayList<double[]>(vertices.length / d);
+        for (int k = 0 ; k < vertices.length ; k += d)
+            res.add(Arrays.copyOfRange(vertices, k, k + d));
+        return res;
+    }
+    
+    /** Presolve the constraints set in the common pool (see presolve(ForkJoinPool)).
+     **/
+    public void presolve()
+    {
+        presolve(ForkJoinPool.commonPool());
+    }
+    
+    /** Presolve the constraints set, once for all the following evaluations (and the clones made after): the constraints are normalised, the duplicates are merged, the implicit equalities are made explicit and the redundant constraints are removed. The presolved constraints are given to a separate solver (see getPresolvedDirections), the constraints set itself is unchanged. It does nothing if the constraints set has not been modified since the last presolve.
+     ** @param pool the pool where the flatness and redundancy linear programs are solved.
+     ** @exception SupportFunctionException if the polyhedron is empty.
+     **/
+    public void presolve(ForkJoinPool pool)
+    {
+        if (presolved)
+            return;
+        int d = lps.getDimension();
+        List <double[]> dirs = lps.getDirections();
+        List <Double> vals = lps.getValues();
+        /* Normalisation, and merge of the duplicates (the tightest value is kept) */
+        List <double[]> a = new ArrayList<double[]>(dirs.size());
+        List <Double> b = new ArrayList<Double>(dirs.size());
+        Map <DirectionKey, Integer> index = new HashMap<DirectionKey, Integer>();
+        for (int j = 0 ; j < dirs.size() ; j++)
+        {
+            double norm = vc.norm(dirs.get(j));
+            if (norm == 0.0)
+            {
+                /* 0 <= b : always or never satisfied */
+                if (vals.get(j) < 0.0)
+                    throw new SupportFunctionException(emptyMessage);
+                continue;
+            }
+            double[] u = new double[d];
+            for (int i = 0 ; i < d ; i++) u[i] = dirs.get(j)[i] / norm;
+            add(a, b, index, u, vals.get(j) / norm);
+        }
+        /* Implicit equalities : the polyhedron is flat if the radius of its largest inner ball (bounded by 1) is zero */
+        int m = a.size();
+        LinearProgrammingSolver ball = lps.newInstance();
+        for (int j = 0 ; j < m ; j++)
+        {
+            double[] up = Arrays.copyOf(a.get(j), d+1);
+            up[d] = 1.0;
+            ball.addLinearConstraint(up, b.get(j));
+        }
+        double[] radius = new double[d+1];
+        radius[d] = 1.0;
+        ball.addLinearConstraint(radius, 1.0);
+        ball.solve(radius);
+        if (ball.getValue() < -eps)
+            throw new SupportFunctionException(emptyMessage);
+        Set <DirectionKey> flat = new HashSet<DirectionKey>();
+        if (ball.getValue() <= eps)
+        {
+            /* min u_j.x for each constraint, the programs being solved in the pool */
+            double[] min = new double[m];
+            pool.invoke(new FlatnessTask(lps, a, b, min, 0, m, Math.max(1, m / (8 * pool.getParallelism()))));
+            for (int j = 0 ; j < m ; j++)
+            {
+                /* min u.x = b : u.x = b on the whole set, so -u.x <= -b is added */
+                if (min[j] >= b.get(j) - tolerance(b.get(j)))
+                {
+                    double[] u = a.get(j);
+                    double[] v = new double[d];
+                    for (int i = 0 ; i < d ; i++) v[i] = -u[i];
+                    flat.add(new DirectionKey(u));
+                    flat.add(new DirectionKey(v));
+                    add(a, b, index, v, -b.get(j));
+                }
+            }
+            m = a.size();
+        }
+        /* Redundancy : u_j.x <= b_j is redundant if max u_j.x <= b_j on the other constraints (b_j being relaxed by 1 to bound the program) */
+        double[] max = new double[m];
+        boolean[] kept = new boolean[m];
+        for (int j = 0 ; j < m ; j++)
+            kept[j] = true;
+        pool.invoke(new RedundancyTask(lps, a, b, kept, max, flat, 0, m, Math.max(1, m / (8 * pool.getParallelism()))));
+        /* The strictly redundant constraints can be removed together, not the weakly ones (touching the set): they are checked again one by one */
+        List <Integer> weak = new ArrayList<Integer>();
+        for (int j = 0 ; j < m ; j++)
+            if (!flat.contains(new DirectionKey(a.get(j))))
+            {
+                if (max[j] < b.get(j) - tolerance(b.get(j)))
+                    kept[j] = false;
+                else if (max[j] <= b.get(j) + tolerance(b.get(j)))
+                    weak.add(j);
+            }
+        for (int j : weak)
+        {
+            kept[j] = false;
+            if (relaxedMaximum(lps, a, b, kept, j) > b.get(j) + tolerance(b.get(j)))
+                kept[j] = true;
+        }
+        /* The new solver */
+        LinearProgrammingSolver res = lps.newInstance();
+        List <Integer> eqs = new ArrayList<Integer>();
+        int k = 0;
+        for (int j = 0 ; j < m ; j++)
+            if (kept[j])
+            {
+                res.addLinearConstraint(a.get(j), b.get(j));
+                if (flat.contains(new DirectionKey(a.get(j))))
+                    eqs.add(k);
+                k++;
+            }
+        evaluator = res;
+        presolved = true;
+        equalities = Collections.unmodifiableList(eqs);
+    }
+    
+    /** State if the constraints set has been presolved since its last modification.
+     ** @return the statement.
+     **/
+    public boolean isPresolved()
+    {
+        return presolved;
+    }
+    
+    /** Give the directions of the presolved constraints.
+     ** @return the list of directions, or null if the constraints set has not been presolved.
+     **/
+    public List <double[]> getPresolvedDirections()
+    {
+        return presolved ? evaluator.getDirections() : null;
+    }
+    
+    /** Give the values of the presolved constraints.
+     ** @return the list of values, or null if the constraints set has not been presolved.
+     **/
+    public List <Double> getPresolvedValues()
+    {
+        return presolved ? evaluator.getValues() : null;
+    }
+    
+    /** Give the indices (in the lists of directions and values of the presolved constraints) of the constraints which hold with equality on the whole set, as found by the last presolve: each one comes with its opposite.
+     ** @return the list of indices, or null if the constraints set has not been presolved.
+     **/
+    public List <Integer> getEqualities()
+    {
+        return equalities;
     }
     
     /** Compute the chebyshev center of this polyhedron.
@@ -88,19 +317,81 @@ public class ConvexPolyhedronSupportFunction implements SupportFunction
     @Override
     public void evaluate(double[] dir)
     {
-        lps.solve(dir);
+        if (prepareBox())
+        {
+            direct = true;
+            int d = dir.length;
+            point = new double[d];
+            value = 0.0;
+            for (int i = 0 ; i < d ; i++)
+            {
+                point[i] = dir[i] >= 0.0 ? boxHi[i] : boxLo[i];
+                value += dir[i] * point[i];
+            }
+            return;
+        }
+        direct = useVertices();
+        if (direct)
+        {
+            int d = lps.getDimension();
+            int k = scan(dir);
+            value = dot(dir, k);
+            point = Arrays.copyOfRange(vertices, k, k + d);
+        }
+        else
+            solver().solve(dir);
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        if (prepareBox())
+        {
+            for (int k = 0 ; k < n ; k++)
+            {
+                double[] dir = dirs[k];
+                double[] x = vectors[k];
+                double v = 0.0;
+                for (int i = 0 ; i < dir.length ; i++)
+                {
+                    x[i] = dir[i] >= 0.0 ? boxHi[i] : boxLo[i];
+                    v += dir[i] * x[i];
+                }
+                values[k] = v;
+            }
+            return;
+        }
+        if (useVertices())
+        {
+            int d = lps.getDimension();
+            for (int i = 0 ; i < n ; i++)
+            {
+                int k = scan(dirs[i]);
+                values[i] = dot(dirs[i], k);
+                System.arraycopy(vertices, k, vectors[i], 0, d);
+            }
+            return;
+        }
+        /* Directly by the solver, whose constraints set is built once for all the directions */
+        LinearProgrammingSolver s = solver();
+        for (int i = 0 ; i < n ; i++)
+        {
+            s.solve(dirs[i]);
+            values[i] = s.getValue();
+            System.arraycopy(s.getPoint(), 0, vectors[i], 0, vectors[i].length);
+        }
     }
     
     @Override
     public double[] getSupportVector()
     {
-        return lps.getPoint();
+        return direct ? point : solver().getPoint();
     }
     
     @Override
     public double getSupportValue()
     {
-        return lps.getValue();
+        return direct ? value : solver().getValue();
     }
     
     @Override
@@ -108,8 +399,323 @@ public class ConvexPolyhedronSupportFunction implements SupportFunction
     {
         ConvexPolyhedronSupportFunction res = new ConvexPolyhedronSupportFunction();
         res.lps = this.lps.clone();
+        if (evaluator != null)
+            res.evaluator = this.evaluator.clone();
+        res.presolved = this.presolved;
+        res.equalities = this.equalities;
+        res.strategy = this.strategy;
+        res.verticesComputed = this.verticesComputed;
+        res.verticesLimited = this.verticesLimited;
+        res.vertices = this.vertices;
+        if (boxLo != null)
+        {
+            res.boxLo = this.boxLo.clone();
+            res.boxHi = this.boxHi.clone();
+        }
+        res.cuts = this.cuts;
+        res.boxChecked = this.boxChecked;
+        res.boxOnly = this.boxOnly;
         return res;
     }
     
+    /* Update the state after the addition of a constraint c.x_k <= b (k < 0 if it is not axis-aligned). */
+    private void modified(int dimension, int k, double c, double b)
+    {
+        presolved = false;
+        equalities = null;
+        verticesComputed = false;
+        verticesLimited = false;
+        vertices = null;
+        boxChecked = false;
+        evaluator = null;
+        if (boxLo == null)
+        {
+            boxLo = new double[dimension];
+            boxHi = new double[dimension];
+            Arrays.fill(boxLo, Double.NEGATIVE_INFINITY);
+            Arrays.fill(boxHi, Double.POSITIVE_INFINITY);
+        }
+        if (k < 0)
+            cuts++;
+        else if (c > 0.0)
+            boxHi[k] = Math.min(boxHi[k], b / c);
+        else
+            boxLo[k] = Math.max(boxLo[k], b / c);
+    }
+    
+    /* State if the polyhedron is evaluated as a box. At the first call after a modification, if the box is bounded, the other constraints which are redundant with it are removed from the linear programs (unless they are presolved) : they are solved by a new solver, with the box and the remaining constraints. */
+    private boolean prepareBox()
+    {
+        if (boxChecked)
+            return boxOnly;
+        boxChecked = true;
+        boxOnly = false;
+        if (boxLo == null)
+            return false;
+        int d = boxLo.length;
+        for (int i = 0 ; i < d ; i++)
+            if (Double.isInfinite(boxLo[i]) || Double.isInfinite(boxHi[i]) || boxLo[i] > boxHi[i])
+                return false;
+        if (cuts == 0)
+            return boxOnly = true;
+        List <double[]> dirs = lps.getDirections();
+        List <Double> vals = lps.getValues();
+        List <Integer> kept = new ArrayList<Integer>();
+        for (int j = 0 ; j < dirs.size() ; j++)
+        {
+            double[] a = dirs.get(j);
+            int nnz = 0;
+            double max = 0.0;
+            for (int i = 0 ; i < d ; i++)
+                if (a[i] != 0.0)
+                {
+                    nnz++;
+                    max += a[i] * (a[i] > 0.0 ? boxHi[i] : boxLo[i]);
+                }
+            /* The axis-aligned constraints are replaced by the box, the others are kept if they cut it */
+            if (nnz != 1 && max > vals.get(j) + tolerance(vals.get(j)))
+                kept.add(j);
+        }
+        if (kept.isEmpty())
+            return boxOnly = true;
+        if (!presolved && kept.size() + 2 * d < dirs.size())
+        {
+            LinearProgrammingSolver res = lps.newInstance();
+            for (int i = 0 ; i < d ; i++)
+            {
+                res.addLinearConstraint(d, new int[] {i}, new double[] {1.0}, boxHi[i]);
+                res.addLinearConstraint(d, new int[] {i}, new double[] {-1.0}, -boxLo[i]);
+            }
+            for (int j : kept)
+                res.addLinearConstraint(dirs.get(j), vals.get(j));
+            evaluator = res;
+        }
+        return false;
+    }
+    
+    /* Give the solver of the linear programs : the presolved one or the reduced one if the box made one, the one of the constraints otherwise. */
+    private LinearProgrammingSolver solver()
+    {
+        return evaluator != null ? evaluator : lps;
+    }
+    
+    /* State if the evaluation is made with the vertices (computed at the first call, with a limit for AUTOMATIC). */
+    private boolean useVertices()
+    {
+        if (strategy == EvaluationStrategy.LP)
+            return false;
+        if (strategy == EvaluationStrategy.VERTICES)
+        {
+            computeVertices();
+            return true;
+        }
+        if (!verticesComputed)
+        {
+            /* A scan costs d by vertex, a simplex d.m by pivot with about d pivots : the enumeration is stopped when there are too much rays */
+            int d = lps.getDimension();
+            int m = lps.getDirections().size();
+            vertices = VertexEnumerator.enumerate(lps.getDirections(), lps.getValues(), d, (int) Math.min((long) d * d * m, maxRays));
+            verticesComputed = true;
+            verticesLimited = true;
+        }
+        return vertices != null;
+    }
+    
+    /* Give the offset of the vertex which maximizes dir. */
+    private int scan(double[] dir)
+    {
+        int d = dir.length;
+        int best = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0 ; k < vertices.length ; k += d)
+        {
+            double s = 0.0;
+            for (int i = 0 ; i < d ; i++) s += vertices[k+i] * dir[i];
+            if (s > max)
+            {
+                max = s;
+                best = k;
+            }
+        }
+        return best;
+    }
+    
+    /* Give dir.v, v being the vertex at offset k. */
+    private double dot(double[] dir, int k)
+    {
+        double s = 0.0;
+        for (int i = 0 ; i < dir.length ; i++) s += vertices[k+i] * dir[i];
+        return s;
+    }
+    
+    /* Add the normalised constraint u.x <= c, or tighten its duplicate. */
+    private static void add(List <double[]> a, List <Double> b, Map <DirectionKey, Integer> index, double[] u, double c)
+    {
+        DirectionKey key = new DirectionKey(u);
+        Integer k = index.get(key);
+        if (k == null)
+        {
+            index.put(key, a.size());
+            a.add(u);
+            b.add(c);
+        }
+        else if (c < b.get(k))
+            b.set(k, c);
+    }
+    
+    /* Tolerance of the comparisons with the normalised value c. */
+    private static double tolerance(double c)
+    {
+        return eps * Math.max(1.0, Math.abs(c));
+    }
+    
+    /* Give max u_j.x on the kept constraints, u_j.x <= b_j + 1 being added (a new solver is built with the same type than proto). */
+    private static double relaxedMaximum(LinearProgrammingSolver proto, List <double[]> a, List <Double> b, boolean[] kept, int j)
+    {
+        LinearProgrammingSolver s = proto.newInstance();
+        for (int i = 0 ; i < a.size() ; i++)
+            if (kept[i] && i != j)
+                s.addLinearConstraint(a.get(i), b.get(i));
+        s.addLinearConstraint(a.get(j), b.get(j) + 1.0);
+        s.solve(a.get(j));
+        return s.getValue();
+    }
+    
+    /* Key of a normalised direction, which identifies the duplicates (up to the rounding). */
+    private static final class DirectionKey
+    {
+        public DirectionKey(double[] u)
+        {
+            coords = new long[u.length];
+            for (int i = 0 ; i < u.length ; i++)
+                coords[i] = Math.round(u[i] / eps);
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            return (o instanceof DirectionKey) && Arrays.equals(coords, ((DirectionKey) o).coords);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(coords);
+        }
+        
+        private final long[] coords;
+    }
+    
+    /* Task which computes min u_j.x for the constraints lo to hi (excluded), bounded by u_j.x >= b_j - 1 : the program is never unbounded, whatever the solver (a new solver is built with the same type than proto). */
+    private static class FlatnessTask extends RecursiveAction
+    {
+        public FlatnessTask(LinearProgrammingSolver proto, List <double[]> a, List <Double> b, double[] min, int lo, int hi, int grain)
+        {
+            this.proto = proto;
+            this.a = a;
+            this.b = b;
+            this.min = min;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > grain)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new FlatnessTask(proto, a, b, min, lo, mid, grain),
+                          new FlatnessTask(proto, a, b, min, mid, hi, grain));
+            }
+            else
+                for (int j = lo ; j < hi ; j++)
+                {
+                    double[] u = a.get(j);
+                    double[] v = new double[u.length];
+                    for (int i = 0 ; i < u.length ; i++) v[i] = -u[i];
+                    LinearProgrammingSolver s = proto.newInstance();
+                    for (int l = 0 ; l < a.size() ; l++)
+                        s.addLinearConstraint(a.get(l), b.get(l));
+                    s.addLinearConstraint(v, 1.0 - b.get(j));
+                    s.solve(v);
+                    min[j] = -s.getValue();
+                }
+        }
+        
+        private final LinearProgrammingSolver proto;
+        private final List <double[]> a;
+        private final List <Double> b;
+        private final double[] min;
+        private final int lo;
+        private final int hi;
+        private final int grain;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    /* Task which computes the relaxed maxima of the constraints lo to hi (excluded), the equalities being skipped. */
+    private static class RedundancyTask extends RecursiveAction
+    {
+        public RedundancyTask(LinearProgrammingSolver proto, List <double[]> a, List <Double> b, boolean[] kept, double[] max, Set <DirectionKey> flat, int lo, int hi, int grain)
+        {
+            this.proto = proto;
+            this.a = a;
+            this.b = b;
+            this.kept = kept;
+            this.max = max;
+            this.flat = flat;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > grain)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RedundancyTask(proto, a, b, kept, max, flat, lo, mid, grain),
+                          new RedundancyTask(proto, a, b, kept, max, flat, mid, hi, grain));
+            }
+            else
+                for (int j = lo ; j < hi ; j++)
+                    if (!flat.contains(new DirectionKey(a.get(j))))
+                        max[j] = relaxedMaximum(proto, a, b, kept, j);
+        }
+        
+        private final LinearProgrammingSolver proto;
+        private final List <double[]> a;
+        private final List <Double> b;
+        private final boolean[] kept;
+        private final double[] max;
+        private final Set <DirectionKey> flat;
+        private final int lo;
+        private final int hi;
+        private final int grain;
+        private static final long serialVersionUID = 1L;
+    }
+    
     private LinearProgrammingSolver lps = ImplementationFactory.getNewLinearProgrammingSolver();
+    private LinearProgrammingSolver evaluator; // the presolved constraints, or the constraints which cut the box, null if not reduced
+    private VectorCalculator vc = ImplementationFactory.getNewVectorCalculator();
+    private boolean presolved;
+    private List <Integer> equalities;
+    private EvaluationStrategy strategy = EvaluationStrategy.LP;
+    private boolean verticesComputed;
+    private boolean verticesLimited; // computed with a limit of rays (AUTOMATIC)
+    private double[] vertices;
+    private boolean direct; // evaluated by the box or the vertices (point and value)
+    private double[] point;
+    private double value;
+    private double[] boxLo; // bounds of the axis-aligned constraints
+    private double[] boxHi;
+    private int cuts; // number of the other constraints
+    private boolean boxChecked;
+    private boolean boxOnly;
+    private static final int maxRays = 4096;
+    private static final double eps = 1e-9;
+    private static final String emptyMessage = "The polyhedron is empty.";
+    private static final String nvMessage = "The polyhedron is unbounded or empty : it has no vertex representation.";
 }
@@ -0,0 +1,275 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+/** An implementation of the SupportFunction for an ellipsoid E = {c + Q^(1/2).y | |y| <= 1}, where the shape matrix Q is symmetric positive semidefinite. Its support function is c.d + sqrt(d^T.Q.d).
+ ** The Cholesky factor L of the matrix (Q = L.L^T) is computed once, and shared by the clones. An ellipsoid given as a sublevel set {x | (x - c)^T.P.(x - c) <= r} (Lyapunov functions) keeps the factor of P, so an evaluation costs one triangular solve, without inverting P.
+ **/
+
+public class EllipsoidSupportFunction implements SupportFunction
+{
+    /** Create a new EllipsoidSupportFunction from its shape matrix (the ellipsoid can be flat).
+     ** @param center the center.
+     ** @param shape the shape matrix Q, symmetric positive semidefinite.
+     ** @exception SupportFunctionException thrown if the matrix is not symmetric positive semidefinite, or if its dimension is not the dimension of the center.
+     **/
+    public EllipsoidSupportFunction(double[] center, double[][] shape)
+    {
+        this(center, shape, 1.0, false);
+    }
+    
+    /** Create a new EllipsoidSupportFunction for the sublevel set {x | (x - c)^T.P.(x - c) <= level}.
+     ** @param center the center c.
+     ** @param p the matrix P, symmetric positive definite.
+     ** @param level the level, positive.
+     ** @return the new EllipsoidSupportFunction.
+     ** @exception SupportFunctionException thrown if the matrix is not symmetric positive definite, if its dimension is not the dimension of the center, or if the level is not positive.
+     **/
+    public static EllipsoidSupportFunction sublevelSet(double[] center, double[][] p, double level)
+    {
+        if (!(level > 0.0))
+            throw new SupportFunctionException(levelMessage);
+        return new EllipsoidSupportFunction(center, p, 1.0 / level, true);
+    }
+    
+    /* Create a new EllipsoidSupportFunction, with the factor of scale.m (the quadratic form if inverse is true, the shape matrix otherwise) */
+    private EllipsoidSupportFunction(double[] center, double[][] m, double scale, boolean inverse)
+    {
+        d = center.length;
+        this.center = center.clone();
+        this.inverse = inverse;
+        l = factorize(m, d, scale, !inverse);
+        w = new double[d];
+    }
+    
+    /** Give the center of the ellipsoid.
+     ** @return a copy of the center.
+     **/
+    public double[] getCenter()
+    {
+        return center.clone();
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        if (dir.length != d)
+            throw new SupportFunctionException(nsvsMessage);
+        norm = evaluateNorm(dir);
+        supportValue = dot(center, dir) + norm;
+        supportVector = null;
+        evaluated = true;
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        for (int k = 0 ; k < n ; k++)
+        {
+            double s = evaluateNorm(dirs[k]);
+            values[k] = dot(center, dirs[k]) + s;
+            supportVector(s, vectors[k]);
+        }
+        /* The buffer of the last evaluation has been used */
+        evaluated = false;
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        if (supportVector == null)
+        {
+            double[] x = new double[d];
+            supportVector(norm, x);
+            supportVector = x;
+        }
+        return supportVector;
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        /* The center and the factor are never modified : they are shared */
+        EllipsoidSupportFunction res = new EllipsoidSupportFunction(this);
+        res.w = w.clone();
+        res.norm = norm;
+        res.supportVector = supportVector;
+        res.supportValue = supportValue;
+        res.evaluated = evaluated;
+        return res;
+    }
+    
+    /* Create a new EllipsoidSupportFunction which shares the center and the factor of e */
+    private EllipsoidSupportFunction(EllipsoidSupportFunction e)
+    {
+        d = e.d;
+        center = e.center;
+        inverse = e.inverse;
+        l = e.l;
+    }
+    
+    /* Compute w (L^T.dir for a shape matrix, L^-1.dir for a quadratic form), and give its norm sqrt(dir^T.Q.dir) */
+    private double evaluateNorm(double[] dir)
+    {
+        if (inverse)
+        {
+            /* Forward substitution */
+            for (int i = 0, o = 0 ; i < d ; i++, o += d)
+            {
+                double s = dir[i];
+                for (int j = 0 ; j < i ; j++) s -= l[o+j] * w[j];
+                w[i] = s / l[o+i];
+            }
+        }
+        else
+        {
+            for (int j = 0 ; j < d ; j++) w[j] = 0.0;
+            for (int i = 0, o = 0 ; i < d ; i++, o += d)
+            {
+                double u = dir[i];
+                for (int j = 0 ; j <= i ; j++) w[j] += l[o+j] * u;
+            }
+        }
+        return Math.sqrt(dot(w, w));
+    }
+    
+    /* Write the support vector c + Q.dir / s in x, from w computed by evaluateNorm, and s its norm */
+    private void supportVector(double s, double[] x)
+    {
+        if (s == 0.0)
+        {
+            /* The direction is orthogonal to the ellipsoid : every point is a support vector */
+            System.arraycopy(center, 0, x, 0, d);
+            return;
+        }
+        if (inverse)
+        {
+            /* Backward substitution of L^T.y = w, row by row of L */
+            System.arraycopy(w, 0, x, 0, d);
+            for (int i = d - 1, o = (d - 1) * d ; i >= 0 ; i--, o -= d)
+            {
+                double y = x[i] / l[o+i];
+                x[i] = y;
+                for (int j = 0 ; j < i ; j++) x[j] -= l[o+j] * y;
+            }
+            for (int i = 0 ; i < d ; i++) x[i] = center[i] + x[i] / s;
+        }
+        else
+        {
+            for (int i = 0, o = 0 ; i < d ; i++, o += d)
+            {
+                double y = 0.0;
+                for (int j = 0 ; j <= i ; j++) y += l[o+j] * w[j];
+                x[i] = center[i] + y / s;
+            }
+        }
+    }
+    
+    /* Give the lower Cholesky factor of scale.m (row-major, d by d). A null pivot gives a null column if semidefinite is true. */
+    private static double[] factorize(double[][] m, int d, double scale, boolean semidefinite)
+    {
+        if (m.length != d)
+            throw new SupportFunctionException(nsvsMessage);
+        double max = 0.0;
+        for (int i = 0 ; i < d ; i++)
+        {
+            if (m[i].length != d)
+                throw new SupportFunctionException(nsvsMessage);
+            max = Math.max(max, Math.abs(m[i][i]));
+        }
+        double tol = eps * Math.max(max, Double.MIN_NORMAL);
+        double[] l = new double[d * d];
+        for (int j = 0 ; j < d ; j++)
+        {
+            for (int i = 0 ; i < j ; i++)
+                if (Math.abs(m[i][j] - m[j][i]) > tol)
+                    throw new SupportFunctionException(nsymMessage);
+            int oj = j * d;
+            double s = m[j][j];
+            for (int k = 0 ; k < j ; k++) s -= l[oj+k] * l[oj+k];
+            if (s <= tol)
+            {
+                if (!semidefinite || s < -tol * d)
+                    throw new SupportFunctionException(npdMessage);
+                /* Null column (flat ellipsoid) : the rest of the column has to be null too, otherwise the matrix is not semidefinite (e.g. [[0, 1], [1, 0]]) */
+                for (int i = j + 1, oi = oj + d ; i < d ; i++, oi += d)
+                {
+                    double t = m[i][j];
+                    for (int k = 0 ; k < j ; k++) t -= l[oi+k] * l[oj+k];
+                    if (Math.abs(t) > tol)
+                        throw new SupportFunctionException(npdMessage);
+                }
+                continue;
+            }
+            double ljj = Math.sqrt(s);
+            l[oj+j] = ljj;
+            for (int i = j + 1, oi = oj + d ; i < d ; i++, oi += d)
+            {
+                double t = m[i][j];
+                for (int k = 0 ; k < j ; k++) t -= l[oi+k] * l[oj+k];
+                l[oi+j] = t / ljj;
+            }
+        }
+        double r = Math.sqrt(scale);
+        for (int k = 0 ; k < d * d ; k++) l[k] *= r;
+        return l;
+    }
+    
+    private static double dot(double[] a, double[] b)
+    {
+        double s = 0.0;
+        for (int i = 0 ; i < a.length ; i++) s += a[i] * b[i];
+        return s;
+    }
+    
+    private final int d;
+    private final double[] center;
+    private final boolean inverse; // true if L is the factor of the quadratic form
+    private final double[] l; // L[i][j] in i.d + j
+    private double[] w;
+    private double norm;
+    private double[] supportVector;
+    private double supportValue;
+    private boolean evaluated = false;
+    private static final double eps = 1e-12;
+    private static final String nsvsMessage = "The matrix, the center and the direction don't live in the same vector space.";
+    private static final String nsymMessage = "The matrix of the ellipsoid is not symmetric.";
+    private static final String npdMessage = "The matrix of the ellipsoid is not positive definite.";
+    private static final String levelMessage = "The level of the sublevel set must be positive.";
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
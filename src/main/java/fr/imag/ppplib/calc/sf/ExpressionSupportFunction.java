@@ -0,0 +1,215 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+import java.util.Arrays;
+
+/** An implementation of the SupportFunction for an expression of convex sets (see SupportExpressionFactory). Each node is evaluated in the normalized direction, and its evaluations are memoised in its cache, so a node shared by several subexpressions, or reached twice in the same direction, is solved once.
+ ** The nodes are shared by the clones (and their caches, which are thread-safe), but each clone evaluates its own clones of the leaves: a clone can be used by each thread. The evaluations don't allocate memory, each node having its own buffers in each clone (a node appears once in a path of the graph).
+ **/
+
+public class ExpressionSupportFunction implements SupportFunction
+{
+    /** Create a new ExpressionSupportFunction.
+     ** @param expression the expression.
+     **/
+    public ExpressionSupportFunction(SupportExpression expression)
+    {
+        this.expression = expression;
+        d = expression.getDimension();
+        supportVector = new double[d];
+    }
+    
+    /** Give the expression of this SupportFunction.
+     ** @return the expression.
+     **/
+    public SupportExpression getExpression()
+    {
+        return expression;
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        if (dir.length != d)
+            throw new SupportFunctionException(nsvsMessage);
+        supportValue = value(expression, dir, supportVector);
+        evaluated = true;
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportVector.clone();
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        ExpressionSupportFunction res = new ExpressionSupportFunction(expression);
+        System.arraycopy(supportVector, 0, res.supportVector, 0, d);
+        res.supportValue = supportValue;
+        res.evaluated = evaluated;
+        return res;
+    }
+    
+    /* Give the support value of the node e in the direction dir, and write its support vector in x : from the cache of the node, or computed and stored in the cache */
+    private double value(SupportExpression e, double[] dir, double[] x)
+    {
+        double[] u = buffers(e)[0];
+        double norm = normalize(dir, u);
+        /* The zero direction is not cached */
+        if (norm == 0)
+            return compute(e, dir, x);
+        SupportCache cache = e.getCache();
+        double v = cache.lookup(u, x);
+        if (Double.isNaN(v))
+        {
+            v = compute(e, u, x);
+            cache.store(u, v, x);
+        }
+        return v * norm;
+    }
+    
+    /* Compute the support value of the node e in the direction dir, and write its support vector in x */
+    private double compute(SupportExpression e, double[] dir, double[] x)
+    {
+        switch (e.getOperator())
+        {
+            case LEAF:
+            {
+                SupportFunction sf = leaf(e);
+                sf.evaluate(dir);
+                System.arraycopy(sf.getSupportVector(), 0, x, 0, x.length);
+                return sf.getSupportValue();
+            }
+            case LINEAR_MAP:
+            {
+                /* h_{M.X}(d) = h_X(M^T.d), with the support vector M.x */
+                double[][] m = e.getMatrix();
+                double[][] mT = e.getMatrixT();
+                double[][] b = buffers(e);
+                double[] w = b[1];
+                double[] y = b[2];
+                for (int j = 0 ; j < mT.length ; j++) w[j] = dot(mT[j], dir);
+                double v = value(e.getOperand(0), w, y);
+                for (int i = 0 ; i < m.length ; i++) x[i] = dot(m[i], y);
+                return v;
+            }
+            case CONVEX_HULL:
+            {
+                double best = Double.NEGATIVE_INFINITY;
+                double[] y = buffers(e)[2];
+                for (int k = 0 ; k < e.getOperandsNumber() ; k++)
+                {
+                    double v = value(e.getOperand(k), dir, y);
+                    if (v > best)
+                    {
+                        best = v;
+                        System.arraycopy(y, 0, x, 0, x.length);
+                    }
+                }
+                return best;
+            }
+            default: // MINKOWSKI_SUM
+            {
+                double sum = 0.0;
+                double[] y = buffers(e)[2];
+                for (int i = 0 ; i < x.length ; i++) x[i] = 0.0;
+                for (int k = 0 ; k < e.getOperandsNumber() ; k++)
+                {
+                    sum += value(e.getOperand(k), dir, y);
+                    for (int i = 0 ; i < x.length ; i++) x[i] += y[i];
+                }
+                return sum;
+            }
+        }
+    }
+    
+    /* Give the clone of the leaf e evaluated by this SupportFunction */
+    private SupportFunction leaf(SupportExpression e)
+    {
+        int id = e.getId();
+        if (id >= leaves.length)
+            leaves = Arrays.copyOf(leaves, Math.max(id + 1, 2 * leaves.length));
+        if (leaves[id] == null)
+            leaves[id] = e.getLeaf().clone();
+        return leaves[id];
+    }
+    
+    /* Give the buffers of the node e : the normalized direction, and for the operators the transformed direction and the support vector of the operands */
+    private double[][] buffers(SupportExpression e)
+    {
+        int id = e.getId();
+        if (id >= scratch.length)
+            scratch = Arrays.copyOf(scratch, Math.max(id + 1, 2 * scratch.length));
+        if (scratch[id] == null)
+        {
+            int n = e.getDimension();
+            int m = e.getOperandsNumber() == 0 ? 0 : e.getOperand(0).getDimension();
+            scratch[id] = new double[][] {new double[n], new double[m], new double[m]};
+        }
+        return scratch[id];
+    }
+    
+    /* Write dir/|dir| in u, and return |dir| */
+    private static double normalize(double[] dir, double[] u)
+    {
+        double norm = Math.sqrt(dot(dir, dir));
+        if (norm != 0)
+            for (int i = 0 ; i < dir.length ; i++) u[i] = dir[i] / norm;
+        return norm;
+    }
+    
+    private static double dot(double[] a, double[] b)
+    {
+        double s = 0.0;
+        for (int i = 0 ; i < a.length ; i++) s += a[i] * b[i];
+        return s;
+    }
+    
+    private final SupportExpression expression;
+    private final int d;
+    private SupportFunction[] leaves = new SupportFunction[0]; // clones of the leaves, by identifier
+    private double[][][] scratch = new double[0][][]; // buffers of the nodes, by identifier
+    private final double[] supportVector;
+    private double supportValue;
+    private boolean evaluated = false;
+    private static final String nsvsMessage = "The expression and the direction don't live in the same vector space.";
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
@@ -60,6 +60,21 @@ public class MatrixSupportFunction implements SupportFunction
         evaluated = true;
     }
     
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        if (n == 0)
+            return;
+        /* All the directions are transformed by one matrix product, and so are the support vectors */
+        double[][] d = new double[n][];
+        for (int i = 0 ; i < n ; i++) d[i] = dirs[i];
+        double[][] dTransformed = mc.multiply(d, matrix);
+        double[][] convexVectors = new double[n][convex.getDimension()];
+        convex.evaluate(dTransformed, n, values, convexVectors);
+        double[][] res = mc.multiply(convexVectors, matrixT);
+        for (int i = 0 ; i < n ; i++) System.arraycopy(res[i], 0, vectors[i], 0, vectors[i].length);
+    }
+    
     @Override
     public double[] getSupportVector()
     {
@@ -0,0 +1,219 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/** An implementation of the SupportFunction for the Minkowski sum of a list of convex sets, which is never computed : the support function of the sum is the sum of the support functions of the operands, and its support vector is the sum of their support vectors.
+ ** When a pool is given, the operands are evaluated in parallel (useful when their evaluations are expensive, as linear programs).
+ **/
+
+public class MinkowskiSumSupportFunction implements SupportFunction
+{
+    /** Create a new MinkowskiSumSupportFunction for the sum of the given convex sets, evaluated sequentially.
+     ** @param convSets a list of convex sets.
+     ** @exception SupportFunctionException thrown if the sets don't live in the same vectorspace.
+     **/
+    public MinkowskiSumSupportFunction(List <SupportFunction> convSets)
+    {
+        this(convSets, null);
+    }
+    
+    /** Create a new MinkowskiSumSupportFunction for the sum of the given convex sets, evaluated in parallel in the given pool. A set given several times (X + X) is cloned, so that it can be evaluated concurrently.
+     ** @param convSets a list of convex sets.
+     ** @param pool the pool, null for a sequential evaluation.
+     ** @exception SupportFunctionException thrown if the sets don't live in the same vectorspace.
+     **/
+    public MinkowskiSumSupportFunction(List <SupportFunction> convSets, ForkJoinPool pool)
+    {
+        /* Same dimension ? */
+        d = convSets.get(0).getDimension();
+        for(SupportFunction sf : convSets)
+        {
+            if (sf.getDimension() != d)
+                throw new SupportFunctionException(nsvsMessage);
+        }
+        
+        /* OK */
+        IdentityHashMap <SupportFunction, Boolean> seen = new IdentityHashMap <SupportFunction, Boolean>();
+        this.convSets = new ArrayList <SupportFunction>(convSets.size());
+        for (SupportFunction sf : convSets)
+            this.convSets.add(seen.put(sf, Boolean.TRUE) == null ? sf : sf.clone());
+        this.pool = pool;
+    }
+    
+    /** Give the pool where the operands are evaluated.
+     ** @return the pool, null if the evaluation is sequential.
+     **/
+    public ForkJoinPool getPool()
+    {
+        return pool;
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        /* Evaluation of each SupportFunction */
+        if (pool != null && convSets.size() > 1)
+            run(new SumTask(convSets, dir, null, 0, null, null, 0, convSets.size()));
+        else
+            for (SupportFunction sf : convSets) sf.evaluate(dir);
+        
+        /* Sum */
+        supportValue = 0.0;
+        supportVector = new double[d];
+        for (SupportFunction sf : convSets)
+        {
+            supportValue += sf.getSupportValue();
+            double[] x = sf.getSupportVector();
+            for (int i = 0 ; i < d ; i++) supportVector[i] += x[i];
+        }
+        
+        /* Flag update */
+        evaluated = true;
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        /* Batch evaluation of each SupportFunction in its own buffers, then sum for each direction */
+        int m = convSets.size();
+        if (setValues == null || setValues[0].length < n)
+        {
+            setValues = new double[m][n];
+            setVectors = new double[m][n][d];
+        }
+        if (pool != null && m > 1)
+            run(new SumTask(convSets, null, dirs, n, setValues, setVectors, 0, m));
+        else
+            for (int k = 0 ; k < m ; k++) convSets.get(k).evaluate(dirs, n, setValues[k], setVectors[k]);
+        for (int i = 0 ; i < n ; i++)
+        {
+            double v = 0.0;
+            double[] x = vectors[i];
+            for (int j = 0 ; j < d ; j++) x[j] = 0.0;
+            for (int k = 0 ; k < m ; k++)
+            {
+                v += setValues[k][i];
+                double[] y = setVectors[k][i];
+                for (int j = 0 ; j < d ; j++) x[j] += y[j];
+            }
+            values[i] = v;
+        }
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportVector;
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        List <SupportFunction> l = new ArrayList <SupportFunction>(convSets.size());
+        for (SupportFunction sf : convSets) l.add(sf.clone());
+        return new MinkowskiSumSupportFunction(l, pool);
+    }
+    
+    /* Run the task in the pool, or directly if the current thread is already a worker (nested sums) */
+    private void run(SumTask task)
+    {
+        if (ForkJoinTask.inForkJoinPool())
+            task.invoke();
+        else
+            pool.invoke(task);
+    }
+    
+    /* Evaluation of the operands in [lo, hi) : in the direction dir if it is not null, in the n directions dirs otherwise */
+    private static class SumTask extends RecursiveAction
+    {
+        public SumTask(List <SupportFunction> convSets, double[] dir, double[][] dirs, int n, double[][] values, double[][][] vectors, int lo, int hi)
+        {
+            this.convSets = convSets;
+            this.dir = dir;
+            this.dirs = dirs;
+            this.n = n;
+            this.values = values;
+            this.vectors = vectors;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > 1)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SumTask(convSets, dir, dirs, n, values, vectors, lo, mid),
+                          new SumTask(convSets, dir, dirs, n, values, vectors, mid, hi));
+            }
+            else if (dir != null)
+                convSets.get(lo).evaluate(dir);
+            else
+                convSets.get(lo).evaluate(dirs, n, values[lo], vectors[lo]);
+        }
+        
+        private final List <SupportFunction> convSets;
+        private final double[] dir;
+        private final double[][] dirs;
+        private final int n;
+        private final double[][] values;
+        private final double[][][] vectors;
+        private final int lo;
+        private final int hi;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    private int d;
+    private List <SupportFunction> convSets;
+    private ForkJoinPool pool;
+    private double supportValue;
+    private double[] supportVector;
+    private double[][] setValues; // buffers of each operand for the batch evaluations
+    private double[][][] setVectors;
+    private boolean evaluated = false;
+    private static final String nsvsMessage = "A convex set of the given list doesn't live in the same vectorspace than the others.";
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
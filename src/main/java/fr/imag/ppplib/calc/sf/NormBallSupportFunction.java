@@ -0,0 +1,213 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+/** An implementation of the SupportFunction for a ball of a p-norm B = {x | |x - c|_p <= r}, with p in [1, +inf]. Its support function is c.d + r.|d|_q, where |.|_q is the dual norm (1/p + 1/q = 1), in O(d).
+ **/
+
+public class NormBallSupportFunction implements SupportFunction
+{
+    /** Create a new NormBallSupportFunction.
+     ** @param center the center.
+     ** @param radius the radius, nonnegative.
+     ** @param p the norm, in [1, +inf] (Double.POSITIVE_INFINITY for the infinity norm).
+     ** @exception SupportFunctionException thrown if the radius is negative or if p is not in [1, +inf].
+     **/
+    public NormBallSupportFunction(double[] center, double radius, double p)
+    {
+        if (!(radius >= 0.0))
+            throw new SupportFunctionException(radiusMessage);
+        if (!(p >= 1.0))
+            throw new SupportFunctionException(normMessage);
+        d = center.length;
+        this.center = center.clone();
+        this.radius = radius;
+        this.p = p;
+        q = p == 1.0 ? Double.POSITIVE_INFINITY : (p == Double.POSITIVE_INFINITY ? 1.0 : p / (p - 1.0));
+        dir = new double[d];
+    }
+    
+    /** Give the center of the ball.
+     ** @return a copy of the center.
+     **/
+    public double[] getCenter()
+    {
+        return center.clone();
+    }
+    
+    /** Give the radius of the ball.
+     ** @return the radius.
+     **/
+    public double getRadius()
+    {
+        return radius;
+    }
+    
+    /** Give the norm of the ball.
+     ** @return p.
+     **/
+    public double getNorm()
+    {
+        return p;
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        if (dir.length != d)
+            throw new SupportFunctionException(nsvsMessage);
+        System.arraycopy(dir, 0, this.dir, 0, d);
+        norm = dualNorm(dir);
+        supportValue = dot(center, dir) + radius * norm;
+        supportVector = null;
+        evaluated = true;
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        for (int k = 0 ; k < n ; k++)
+        {
+            double s = dualNorm(dirs[k]);
+            values[k] = dot(center, dirs[k]) + radius * s;
+            supportVector(dirs[k], s, vectors[k]);
+        }
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        if (supportVector == null)
+        {
+            double[] x = new double[d];
+            supportVector(dir, norm, x);
+            supportVector = x;
+        }
+        return supportVector;
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        NormBallSupportFunction res = new NormBallSupportFunction(center, radius, p);
+        System.arraycopy(dir, 0, res.dir, 0, d);
+        res.norm = norm;
+        res.supportVector = supportVector;
+        res.supportValue = supportValue;
+        res.evaluated = evaluated;
+        return res;
+    }
+    
+    /* Give |u|_q (scaled by the largest coordinate for the general norms, to avoid overflows) */
+    private double dualNorm(double[] u)
+    {
+        if (q == 1.0)
+        {
+            double s = 0.0;
+            for (int i = 0 ; i < d ; i++) s += Math.abs(u[i]);
+            return s;
+        }
+        double max = 0.0;
+        for (int i = 0 ; i < d ; i++) max = Math.max(max, Math.abs(u[i]));
+        if (q == Double.POSITIVE_INFINITY || max == 0.0)
+            return max;
+        if (q == 2.0)
+            return Math.sqrt(dot(u, u));
+        double s = 0.0;
+        for (int i = 0 ; i < d ; i++) s += Math.pow(Math.abs(u[i]) / max, q);
+        return max * Math.pow(s, 1.0 / q);
+    }
+    
+    /* Write the support vector for the direction u, whose dual norm is s, in x */
+    private void supportVector(double[] u, double s, double[] x)
+    {
+        System.arraycopy(center, 0, x, 0, d);
+        if (s == 0.0 || radius == 0.0)
+            return;
+        if (q == Double.POSITIVE_INFINITY)
+        {
+            /* A vertex of the cross-polytope */
+            int k = 0;
+            for (int i = 1 ; i < d ; i++)
+                if (Math.abs(u[i]) > Math.abs(u[k]))
+                    k = i;
+            x[k] += u[k] >= 0.0 ? radius : -radius;
+        }
+        else if (q == 1.0)
+        {
+            /* A vertex of the hypercube */
+            for (int i = 0 ; i < d ; i++) x[i] += u[i] >= 0.0 ? radius : -radius;
+        }
+        else if (q == 2.0)
+        {
+            double r = radius / s;
+            for (int i = 0 ; i < d ; i++) x[i] += r * u[i];
+        }
+        else
+        {
+            /* x_i = c_i + r.sign(u_i).(|u_i| / s)^(q - 1) */
+            for (int i = 0 ; i < d ; i++)
+            {
+                double t = radius * Math.pow(Math.abs(u[i]) / s, q - 1.0);
+                x[i] += u[i] >= 0.0 ? t : -t;
+            }
+        }
+    }
+    
+    private static double dot(double[] a, double[] b)
+    {
+        double s = 0.0;
+        for (int i = 0 ; i < a.length ; i++) s += a[i] * b[i];
+        return s;
+    }
+    
+    private final int d;
+    private final double[] center;
+    private final double radius;
+    private final double p;
+    private final double q; // the dual norm
+    private final double[] dir; // the direction of the last evaluation
+    private double norm;
+    private double[] supportVector;
+    private double supportValue;
+    private boolean evaluated = false;
+    private static final String nsvsMessage = "The center and the direction don't live in the same vector space.";
+    private static final String radiusMessage = "The radius of the ball must be nonnegative.";
+    private static final String normMessage = "The norm of the ball must be in [1, +inf].";
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
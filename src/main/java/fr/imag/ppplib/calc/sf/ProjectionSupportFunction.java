@@ -57,6 +57,20 @@ public class ProjectionSupportFunction implements SupportFunction
         evaluated = true;
     }
     
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        /* Batch evaluation of the convex set, in the directions of the original space */
+        if (dirsnd == null || dirsnd.length < n)
+        {
+            dirsnd = new double[n][];
+            vectorsnd = new double[n][convex.getDimension()];
+        }
+        for (int i = 0 ; i < n ; i++) dirsnd[i] = pc.toOriginalSpace(dirs[i]);
+        convex.evaluate(dirsnd, n, values, vectorsnd);
+        for (int i = 0 ; i < n ; i++) System.arraycopy(pc.planarProjection(vectorsnd[i]), 0, vectors[i], 0, 2);
+    }
+    
     @Override
     public double[] getSupportVector()
     {
@@ -90,6 +104,7 @@ public class ProjectionSupportFunction implements SupportFunction
     private SupportFunction convex;
     private ProjectionCalculator pc;
     private double[] supportVector;
+    private double[][] dirsnd, vectorsnd; // buffers for the batch evaluations
     private double supportValue;
     private boolean evaluated = false;
     private static final String nsvsMessage = "The convex set and the plane don't live in the same vector space.";
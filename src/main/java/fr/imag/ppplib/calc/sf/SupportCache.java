@@ -0,0 +1,152 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
+
+/** A bounded cache of evaluations of a support function, keyed on the normalized direction, with a least recently used eviction. It is thread-safe, so that it can be shared by the clones of a support function (the support function of a convex set depends only on the direction).
+ **/
+
+public final class SupportCache
+{
+    /** Create a new empty cache.
+     ** @param capacity the maximum number of directions kept.
+     ** @exception SupportFunctionException thrown if the capacity is negative or zero.
+     **/
+    public SupportCache(final int capacity)
+    {
+        if (capacity < 1)
+            throw new SupportFunctionException(capMessage);
+        this.capacity = capacity;
+        entries = new LinkedHashMap <Key, double[]>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry <Key, double[]> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+    
+    /** Give the support value in the normalized direction u, and copy the support vector in vector, if u is in the cache.
+     ** @param u a direction of norm 1.
+     ** @param vector the buffer for the support vector.
+     ** @return the support value, NaN if the direction is not in the cache.
+     **/
+    public synchronized double lookup(double[] u, double[] vector)
+    {
+        double[] e = entries.get(new Key(u));
+        if (e == null)
+        {
+            misses++;
+            return Double.NaN;
+        }
+        hits++;
+        System.arraycopy(e, 1, vector, 0, e.length - 1);
+        return e[0];
+    }
+    
+    /** Put an evaluation in the cache (the arrays are copied).
+     ** @param u a direction of norm 1.
+     ** @param value the support value in the direction u.
+     ** @param vector the support vector.
+     **/
+    public synchronized void store(double[] u, double value, double[] vector)
+    {
+        double[] e = new double[vector.length + 1];
+        e[0] = value;
+        System.arraycopy(vector, 0, e, 1, vector.length);
+        entries.put(new Key(u.clone()), e);
+    }
+    
+    /** Remove all the directions of the cache (the counters are kept).
+     **/
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+    
+    /** Give the maximum number of directions kept.
+     ** @return the capacity.
+     **/
+    public int getCapacity()
+    {
+        return capacity;
+    }
+    
+    /** Give the number of directions in the cache.
+     ** @return the size.
+     **/
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+    
+    /** Give the number of lookups which found their direction.
+     ** @return the number of hits.
+     **/
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+    
+    /** Give the number of lookups which didn't find their direction.
+     ** @return the number of misses.
+     **/
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+    
+    /* A normalized direction, as a key of the map */
+    private static final class Key
+    {
+        public Key(double[] u)
+        {
+            this.u = u;
+            hash = Arrays.hashCode(u);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.equals(u, ((Key) o).u);
+        }
+        
+        private final double[] u;
+        private final int hash;
+    }
+    
+    private final int capacity;
+    private final Map <Key, double[]> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private static final String capMessage = "The capacity of a cache cannot be negative or zero.";
+}
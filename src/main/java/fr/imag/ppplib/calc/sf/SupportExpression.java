@@ -0,0 +1,141 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+/** A node of an expression of convex sets built by a SupportExpressionFactory: a convex set given by its SupportFunction, the image of an expression by a linear map, or the convex hull or the Minkowski sum of expressions. The nodes are immutable and shared: the factory gives the same node for the same expression, so an expression is a directed acyclic graph.
+ ** Each node keeps its evaluations in a SupportCache, shared by all the ExpressionSupportFunction which use it.
+ **/
+
+public final class SupportExpression
+{
+    /** The operators of the expressions.
+     **/
+    public enum Operator
+    {
+        /** A convex set given by its SupportFunction.
+         **/
+        LEAF,
+        /** The image of an expression by a linear map.
+         **/
+        LINEAR_MAP,
+        /** The convex hull of expressions.
+         **/
+        CONVEX_HULL,
+        /** The Minkowski sum of expressions.
+         **/
+        MINKOWSKI_SUM
+    }
+    
+    /* Create a new node (by the factory only) */
+    SupportExpression(int id, Operator op, int dimension, SupportFunction leaf, double[][] matrix, SupportExpression[] operands, int cacheCapacity)
+    {
+        this.id = id;
+        this.op = op;
+        this.dimension = dimension;
+        this.leaf = leaf;
+        this.matrix = matrix;
+        this.operands = operands;
+        cache = new SupportCache(cacheCapacity);
+        if (matrix != null)
+        {
+            matrixT = new double[matrix[0].length][matrix.length];
+            for (int i = 0 ; i < matrix.length ; i++)
+                for (int j = 0 ; j < matrix[0].length ; j++) matrixT[j][i] = matrix[i][j];
+        }
+        else
+            matrixT = null;
+    }
+    
+    /** Give the identifier of the node in its factory.
+     ** @return the identifier.
+     **/
+    public int getId()
+    {
+        return id;
+    }
+    
+    /** Give the operator of the node.
+     ** @return the operator.
+     **/
+    public Operator getOperator()
+    {
+        return op;
+    }
+    
+    /** Give the dimension of the vectorspace where lives the convex set.
+     ** @return the dimension.
+     **/
+    public int getDimension()
+    {
+        return dimension;
+    }
+    
+    /** Give the number of operands of the node.
+     ** @return the number of operands (0 for a leaf).
+     **/
+    public int getOperandsNumber()
+    {
+        return operands.length;
+    }
+    
+    /** Give an operand of the node.
+     ** @param i the index of the operand.
+     ** @return the operand.
+     **/
+    public SupportExpression getOperand(int i)
+    {
+        return operands[i];
+    }
+    
+    /** Give the cache of the evaluations of the node (its hits are the evaluations saved).
+     ** @return the cache.
+     **/
+    public SupportCache getCache()
+    {
+        return cache;
+    }
+    
+    /* The SupportFunction of a leaf, never evaluated itself (each ExpressionSupportFunction evaluates its own clone) */
+    SupportFunction getLeaf()
+    {
+        return leaf;
+    }
+    
+    double[][] getMatrix()
+    {
+        return matrix;
+    }
+    
+    double[][] getMatrixT()
+    {
+        return matrixT;
+    }
+    
+    private final int id;
+    private final Operator op;
+    private final int dimension;
+    private final SupportFunction leaf;
+    private final double[][] matrix;
+    private final double[][] matrixT;
+    private final SupportExpression[] operands;
+    private final SupportCache cache;
+}
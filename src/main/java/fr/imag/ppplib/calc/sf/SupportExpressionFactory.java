@@ -0,0 +1,197 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/** A factory of expressions of convex sets (SupportExpression), which deduplicates the shared subexpressions: the same SupportFunction, or the same operator applied to the same operands, gives the same node. The operands of the convex hulls and of the Minkowski sums are not ordered.
+ ** The expressions are evaluated by an ExpressionSupportFunction, which solves each distinct (node, direction) once, while the direction is in the cache of the node.
+ **/
+
+public class SupportExpressionFactory
+{
+    /** Create a new factory.
+     ** @param cacheCapacity the maximum number of directions kept by the cache of each node.
+     ** @exception SupportFunctionException thrown if the capacity is negative or zero.
+     **/
+    public SupportExpressionFactory(int cacheCapacity)
+    {
+        if (cacheCapacity < 1)
+            throw new SupportFunctionException(capMessage);
+        this.cacheCapacity = cacheCapacity;
+    }
+    
+    /** Give the node of a convex set. The SupportFunction must not be modified anymore, it is cloned for the evaluations.
+     ** @param sf the support function of the convex set.
+     ** @return the node.
+     **/
+    public synchronized SupportExpression leaf(SupportFunction sf)
+    {
+        SupportExpression e = leaves.get(sf);
+        if (e == null)
+        {
+            e = new SupportExpression(nodesNumber++, SupportExpression.Operator.LEAF, sf.getDimension(), sf, null, new SupportExpression[0], cacheCapacity);
+            leaves.put(sf, e);
+        }
+        return e;
+    }
+    
+    /** Give the node of the image of an expression by a linear map (the matrix is copied).
+     ** @param matrix the matrix of the linear map.
+     ** @param e the expression.
+     ** @return the node.
+     ** @exception SupportFunctionException thrown if the expression and the matrix are incompatible.
+     **/
+    public synchronized SupportExpression linearMap(double[][] matrix, SupportExpression e)
+    {
+        if (matrix.length == 0 || matrix[0].length != e.getDimension())
+            throw new SupportFunctionException(nsvsMessage);
+        double[][] m = new double[matrix.length][];
+        for (int i = 0 ; i < matrix.length ; i++)
+        {
+            if (matrix[i].length != e.getDimension())
+                throw new SupportFunctionException(nsvsMessage);
+            m[i] = matrix[i].clone();
+        }
+        return intern(SupportExpression.Operator.LINEAR_MAP, m.length, m, new SupportExpression[] {e});
+    }
+    
+    /** Give the node of the convex hull of expressions.
+     ** @param operands the expressions.
+     ** @return the node.
+     ** @exception SupportFunctionException thrown if the list is empty, or if the expressions don't live in the same vectorspace.
+     **/
+    public synchronized SupportExpression convexHull(List <SupportExpression> operands)
+    {
+        return intern(SupportExpression.Operator.CONVEX_HULL, operands);
+    }
+    
+    /** Give the node of the Minkowski sum of expressions.
+     ** @param operands the expressions.
+     ** @return the node.
+     ** @exception SupportFunctionException thrown if the list is empty, or if the expressions don't live in the same vectorspace.
+     **/
+    public synchronized SupportExpression minkowskiSum(List <SupportExpression> operands)
+    {
+        return intern(SupportExpression.Operator.MINKOWSKI_SUM, operands);
+    }
+    
+    /** Give the number of distinct nodes created by the factory.
+     ** @return the number of nodes.
+     **/
+    public synchronized int getNodesNumber()
+    {
+        return nodesNumber;
+    }
+    
+    /* Give the node of a convex hull or of a Minkowski sum, whose operands are sorted by identifier. A hull of one set is the set itself (but not a sum, X + X is 2X). */
+    private SupportExpression intern(SupportExpression.Operator op, List <SupportExpression> operands)
+    {
+        if (operands.isEmpty())
+            throw new SupportFunctionException(emptyMessage);
+        int d = operands.get(0).getDimension();
+        SupportExpression[] sorted = operands.toArray(new SupportExpression[operands.size()]);
+        for (SupportExpression e : sorted)
+            if (e.getDimension() != d)
+                throw new SupportFunctionException(nsvsMessage);
+        Arrays.sort(sorted, byId);
+        if (op == SupportExpression.Operator.CONVEX_HULL)
+        {
+            /* conv(X, X) = X */
+            int n = 0;
+            for (int i = 0 ; i < sorted.length ; i++)
+                if (n == 0 || sorted[n-1] != sorted[i])
+                    sorted[n++] = sorted[i];
+            if (n == 1)
+                return sorted[0];
+            sorted = Arrays.copyOf(sorted, n);
+        }
+        return intern(op, d, null, sorted);
+    }
+    
+    /* Give the node of the given operator, created if it doesn't exist */
+    private SupportExpression intern(SupportExpression.Operator op, int dimension, double[][] matrix, SupportExpression[] operands)
+    {
+        Key k = new Key(op, matrix, operands);
+        SupportExpression e = nodes.get(k);
+        if (e == null)
+        {
+            e = new SupportExpression(nodesNumber++, op, dimension, null, matrix, operands, cacheCapacity);
+            nodes.put(k, e);
+        }
+        return e;
+    }
+    
+    /* The structure of a node, as a key of the map : its operator, its matrix and its operands (which are already unique) */
+    private static final class Key
+    {
+        public Key(SupportExpression.Operator op, double[][] matrix, SupportExpression[] operands)
+        {
+            this.op = op;
+            this.matrix = matrix;
+            ids = new int[operands.length];
+            for (int i = 0 ; i < operands.length ; i++) ids[i] = operands[i].getId();
+            hash = 31 * (31 * op.hashCode() + Arrays.hashCode(ids)) + Arrays.deepHashCode(matrix);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return op == k.op && Arrays.equals(ids, k.ids) && Arrays.deepEquals(matrix, k.matrix);
+        }
+        
+        private final SupportExpression.Operator op;
+        private final double[][] matrix;
+        private final int[] ids;
+        private final int hash;
+    }
+    
+    private final int cacheCapacity;
+    private final Map <SupportFunction, SupportExpression> leaves = new IdentityHashMap <SupportFunction, SupportExpression>();
+    private final Map <Key, SupportExpression> nodes = new HashMap <Key, SupportExpression>();
+    private int nodesNumber = 0;
+    private static final Comparator <SupportExpression> byId = new Comparator <SupportExpression>()
+    {
+        @Override
+        public int compare(SupportExpression a, SupportExpression b)
+        {
+            return Integer.compare(a.getId(), b.getId());
+        }
+    };
+    private static final String capMessage = "The capacity of a cache cannot be negative or zero.";
+    private static final String nsvsMessage = "The operands of an expression don't live in the same vectorspace.";
+    private static final String emptyMessage = "An expression needs at least one operand.";
+}
@@ -36,6 +36,22 @@ public interface SupportFunction
      **/
     void evaluate(double[] dir);
     
+    /** Evaluate the support function in several directions, and write the results in the given buffers. After this call, the support vector and the support value of the SupportFunction are unspecified.
+     ** @param dirs the directions (the n first rows are evaluated).
+     ** @param n the number of directions.
+     ** @param values the buffer for the support values (at least n values).
+     ** @param vectors the buffer for the support vectors (at least n rows, of the dimension of the vectorspace).
+     **/
+    default void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        for (int i = 0 ; i < n ; i++)
+        {
+            evaluate(dirs[i]);
+            values[i] = getSupportValue();
+            System.arraycopy(getSupportVector(), 0, vectors[i], 0, vectors[i].length);
+        }
+    }
+    
     /** Give the support vector.
      ** @return the support vector.
      **/
@@ -0,0 +1,241 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/** Vertex enumeration of a bounded polyhedron in H-representation, by the double description method on its homogenized cone {(x, t) | a.x - b.t <= 0, t >= 0}.
+ **/
+
+final class VertexEnumerator
+{
+    /** Give the vertices of the polyhedron a_j.x <= b_j.
+     ** @param dirs the directions a_j.
+     ** @param vals the values b_j.
+     ** @param d the dimension.
+     ** @param limit the maximal number of rays along the enumeration.
+     ** @return the vertices in a flat array (d coordinates by vertex), or null if the polyhedron is unbounded, empty or if the limit is reached.
+     **/
+    static double[] enumerate(List <double[]> dirs, List <Double> vals, int d, int limit)
+    {
+        int m = dirs.size();
+        int n = d + 1;
+        double[][] rows = new double[m+1][];
+        for (int j = 0 ; j < m ; j++)
+        {
+            double[] h = new double[n];
+            System.arraycopy(dirs.get(j), 0, h, 0, d);
+            h[d] = -vals.get(j);
+            rows[j] = scale(h);
+        }
+        rows[m] = new double[n];
+        rows[m][d] = -1.0;
+        /* Initial cone : n independent constraints (otherwise the polyhedron is unbounded) */
+        int[] chosen = independentRows(rows, n);
+        if (chosen == null)
+            return null;
+        double[][] inv = inverse(chosen, rows, n);
+        if (inv == null)
+            return null;
+        List <double[]> rays = new ArrayList<double[]>();
+        List <BitSet> zeros = new ArrayList<BitSet>();
+        BitSet done = new BitSet(m+1);
+        for (int k = 0 ; k < n ; k++)
+        {
+            /* The column -inv[.][k] is tight on the chosen constraints, except the k-th */
+            double[] r = new double[n];
+            for (int i = 0 ; i < n ; i++) r[i] = -inv[i][k];
+            BitSet z = new BitSet(m+1);
+            for (int l = 0 ; l < n ; l++)
+                if (l != k)
+                    z.set(chosen[l]);
+            rays.add(scale(r));
+            zeros.add(z);
+            done.set(chosen[k]);
+        }
+        /* Insertion of the other constraints */
+        for (int j = 0 ; j <= m ; j++)
+        {
+            if (done.get(j))
+                continue;
+            double[] h = rows[j];
+            int nr = rays.size();
+            double[] s = new double[nr];
+            List <double[]> nRays = new ArrayList<double[]>();
+            List <BitSet> nZeros = new ArrayList<BitSet>();
+            for (int k = 0 ; k < nr ; k++)
+            {
+                double v = 0.0;
+                double[] r = rays.get(k);
+                for (int i = 0 ; i < n ; i++) v += h[i] * r[i];
+                if (Math.abs(v) <= eps)
+                    v = 0.0;
+                s[k] = v;
+                if (v <= 0.0)
+                {
+                    BitSet z = zeros.get(k);
+                    if (v == 0.0)
+                        z.set(j);
+                    nRays.add(r);
+                    nZeros.add(z);
+                }
+            }
+            for (int p = 0 ; p < nr ; p++)
+            {
+                if (s[p] <= 0.0)
+                    continue;
+                for (int q = 0 ; q < nr ; q++)
+                {
+                    if (s[q] >= 0.0 || !adjacent(zeros, p, q, n))
+                        continue;
+                    double[] rp = rays.get(p);
+                    double[] rq = rays.get(q);
+                    double[] r = new double[n];
+                    for (int i = 0 ; i < n ; i++) r[i] = s[p] * rq[i] - s[q] * rp[i];
+                    BitSet z = (BitSet) zeros.get(p).clone();
+                    z.and(zeros.get(q));
+                    z.set(j);
+                    nRays.add(scale(r));
+                    nZeros.add(z);
+                    if (nRays.size() > limit)
+                        return null;
+                }
+            }
+            rays = nRays;
+            zeros = nZeros;
+            done.set(j);
+        }
+        /* Vertices (t > 0, relatively to the norm of the ray), any ray with t = 0 being an unbounded direction */
+        if (rays.isEmpty())
+            return null;
+        double[] res = new double[rays.size() * d];
+        for (int k = 0 ; k < rays.size() ; k++)
+        {
+            double[] r = rays.get(k);
+            double norm = 0.0;
+            for (int i = 0 ; i < n ; i++) norm += r[i] * r[i];
+            if (r[d] <= eps * Math.sqrt(norm))
+                return null;
+            for (int i = 0 ; i < d ; i++) res[k*d + i] = r[i] / r[d];
+        }
+        return res;
+    }
+    
+    /* Combinatorial test : the rays p and q are adjacent if no other ray is tight on all their common constraints. */
+    private static boolean adjacent(List <BitSet> zeros, int p, int q, int n)
+    {
+        BitSet z = (BitSet) zeros.get(p).clone();
+        z.and(zeros.get(q));
+        if (z.cardinality() < n - 2)
+            return false;
+        BitSet t = new BitSet();
+        for (int k = 0 ; k < zeros.size() ; k++)
+        {
+            if (k == p || k == q)
+                continue;
+            t.clear();
+            t.or(z);
+            t.andNot(zeros.get(k));
+            if (t.isEmpty())
+                return false;
+        }
+        return true;
+    }
+    
+    /* Give the indices of n linearly independent rows (greedily, by Gram-Schmidt), or null if the rank is lower. */
+    private static int[] independentRows(double[][] rows, int n)
+    {
+        int[] res = new int[n];
+        double[][] basis = new double[n][];
+        int k = 0;
+        for (int j = rows.length - 1 ; j >= 0 && k < n ; j--)
+        {
+            double[] v = rows[j].clone();
+            for (int l = 0 ; l < k ; l++)
+            {
+                double p = 0.0;
+                for (int i = 0 ; i < n ; i++) p += v[i] * basis[l][i];
+                for (int i = 0 ; i < n ; i++) v[i] -= p * basis[l][i];
+            }
+            double norm = 0.0;
+            for (int i = 0 ; i < n ; i++) norm += v[i] * v[i];
+            norm = Math.sqrt(norm);
+            if (norm <= 1e-7)
+                continue;
+            for (int i = 0 ; i < n ; i++) v[i] /= norm;
+            basis[k] = v;
+            res[k++] = j;
+        }
+        return k < n ? null : res;
+    }
+    
+    /* Give the inverse of the matrix of the chosen rows (Gauss-Jordan with partial pivoting), or null if it is singular. */
+    private static double[][] inverse(int[] chosen, double[][] rows, int n)
+    {
+        double[][] a = new double[n][2*n];
+        for (int i = 0 ; i < n ; i++)
+        {
+            System.arraycopy(rows[chosen[i]], 0, a[i], 0, n);
+            a[i][n+i] = 1.0;
+        }
+        for (int c = 0 ; c < n ; c++)
+        {
+            int p = c;
+            for (int i = c + 1 ; i < n ; i++)
+                if (Math.abs(a[i][c]) > Math.abs(a[p][c]))
+                    p = i;
+            if (Math.abs(a[p][c]) <= eps)
+                return null;
+            double[] tmp = a[p];
+            a[p] = a[c];
+            a[c] = tmp;
+            double piv = a[c][c];
+            for (int k = 0 ; k < 2*n ; k++) a[c][k] /= piv;
+            for (int i = 0 ; i < n ; i++)
+                if (i != c && a[i][c] != 0.0)
+                {
+                    double f = a[i][c];
+                    for (int k = 0 ; k < 2*n ; k++) a[i][k] -= f * a[c][k];
+                }
+        }
+        double[][] res = new double[n][n];
+        for (int i = 0 ; i < n ; i++)
+            System.arraycopy(a[i], n, res[i], 0, n);
+        return res;
+    }
+    
+    /* Scale v so that its largest absolute coordinate is 1. */
+    private static double[] scale(double[] v)
+    {
+        double max = 0.0;
+        for (double x : v) max = Math.max(max, Math.abs(x));
+        if (max > 0.0)
+            for (int i = 0 ; i < v.length ; i++) v[i] /= max;
+        return v;
+    }
+    
+    private VertexEnumerator() {}
+    
+    private static final double eps = 1e-9;
+}
@@ -0,0 +1,180 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.calc.sf;
+
+/** An implementation of the SupportFunction for a zonotope, given by its center c and its generators g_k: Z = {c + sum_k t_k.g_k | t_k in [-1, 1]}. Its support function is c.d + sum_k |g_k.d|, in O(n.d) for n generators, without linear programming.
+ ** The generators are stored in one flat array. The evaluation doesn't allocate memory: the support vector c + sum_k sign(g_k.d).g_k is computed at the first call of getSupportVector, and the evaluation of several directions writes it in the given buffers.
+ **/
+
+public class ZonotopeSupportFunction implements SupportFunction
+{
+    /** Create a new ZonotopeSupportFunction (the arrays are copied).
+     ** @param center the center.
+     ** @param generators the generators, of the dimension of the center.
+     ** @exception SupportFunctionException thrown if a generator doesn't live in the dimension of the center.
+     **/
+    public ZonotopeSupportFunction(double[] center, double[][] generators)
+    {
+        d = center.length;
+        n = generators.length;
+        this.center = center.clone();
+        this.generators = new double[n * d];
+        for (int k = 0 ; k < n ; k++)
+        {
+            if (generators[k].length != d)
+                throw new SupportFunctionException(nsvsMessage);
+            System.arraycopy(generators[k], 0, this.generators, k * d, d);
+        }
+        dots = new double[n];
+    }
+    
+    /** Give the center of the zonotope.
+     ** @return a copy of the center.
+     **/
+    public double[] getCenter()
+    {
+        return center.clone();
+    }
+    
+    /** Give the number of generators of the zonotope.
+     ** @return the number of generators.
+     **/
+    public int getGeneratorsNumber()
+    {
+        return n;
+    }
+    
+    @Override
+    public int getDimension()
+    {
+        return d;
+    }
+    
+    @Override
+    public void evaluate(double[] dir)
+    {
+        if (dir.length != d)
+            throw new SupportFunctionException(nsvsMessage);
+        double v = 0.0;
+        for (int i = 0 ; i < d ; i++) v += center[i] * dir[i];
+        for (int k = 0, o = 0 ; k < n ; k++, o += d)
+        {
+            double s = 0.0;
+            for (int i = 0 ; i < d ; i++) s += generators[o+i] * dir[i];
+            dots[k] = s;
+            v += Math.abs(s);
+        }
+        supportValue = v;
+        supportVector = null;
+        evaluated = true;
+    }
+    
+    @Override
+    public void evaluate(double[][] dirs, int n, double[] values, double[][] vectors)
+    {
+        for (int l = 0 ; l < n ; l++)
+        {
+            double[] dir = dirs[l];
+            double[] x = vectors[l];
+            double v = 0.0;
+            for (int i = 0 ; i < d ; i++)
+            {
+                v += center[i] * dir[i];
+                x[i] = center[i];
+            }
+            for (int k = 0, o = 0 ; k < this.n ; k++, o += d)
+            {
+                double s = 0.0;
+                for (int i = 0 ; i < d ; i++) s += generators[o+i] * dir[i];
+                if (s >= 0.0)
+                {
+                    v += s;
+                    for (int i = 0 ; i < d ; i++) x[i] += generators[o+i];
+                }
+                else
+                {
+                    v -= s;
+                    for (int i = 0 ; i < d ; i++) x[i] -= generators[o+i];
+                }
+            }
+            values[l] = v;
+        }
+    }
+    
+    @Override
+    public double[] getSupportVector()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        if (supportVector == null)
+        {
+            double[] x = center.clone();
+            for (int k = 0, o = 0 ; k < n ; k++, o += d)
+            {
+                double s = dots[k] >= 0.0 ? 1.0 : -1.0;
+                for (int i = 0 ; i < d ; i++) x[i] += s * generators[o+i];
+            }
+            supportVector = x;
+        }
+        return supportVector;
+    }
+    
+    @Override
+    public double getSupportValue()
+    {
+        if (!evaluated)
+            throw new SupportFunctionException(nyeMessage);
+        return supportValue;
+    }
+    
+    @Override
+    public SupportFunction clone()
+    {
+        /* The center and the generators are never modified : they are shared */
+        ZonotopeSupportFunction res = new ZonotopeSupportFunction(this);
+        res.dots = dots.clone();
+        res.supportVector = supportVector;
+        res.supportValue = supportValue;
+        res.evaluated = evaluated;
+        return res;
+    }
+    
+    /* Create a new ZonotopeSupportFunction which shares the center and the generators of z */
+    private ZonotopeSupportFunction(ZonotopeSupportFunction z)
+    {
+        d = z.d;
+        n = z.n;
+        center = z.center;
+        generators = z.generators;
+    }
+    
+    private final int d;
+    private final int n;
+    private final double[] center;
+    private final double[] generators; // g_k in [k.d, (k+1).d)
+    private double[] dots; // g_k.dir of the last evaluation
+    private double[] supportVector;
+    private double supportValue;
+    private boolean evaluated = false;
+    private static final String nsvsMessage = "The generators, the center and the direction don't live in the same vector space.";
+    private static final String nyeMessage = "This SupportFunction has not been yet evaluated.";
+}
@@ -36,6 +36,14 @@ import java.util.ArrayList;
 
 public class PolyhedraReader
 {
+    /** Choose if the polyhedra are presolved when they are read (see ConvexPolyhedronSupportFunction.presolve()). By default, they are not.
+     ** @param presolve the statement.
+     **/
+    public void setPresolve(boolean presolve)
+    {
+        this.presolve = presolve;
+    }
+    
     /** Read from file.
      ** @param fileName the file name.
      ** @return the list of polyhedra.
@@ -64,6 +72,54 @@ public class PolyhedraReader
                     b = sc.nextDouble();
                     p.addLinearConstraint(a, b);
                 }
+                if (presolve)
+                    p.presolve();
+                res.add(p);
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            e.printStackTrace();
+        }
+        return res;
+    }
+    
+    /** Read from file in sparse format : the same than the dense one, except that each halfspace is given by its number of nonzero coefficients k, then k couples (index from 0, coefficient), then its scalar.
+     ** @param fileName the file name.
+     ** @return the list of polyhedra.
+     **/
+    public List<SupportFunction> readSparse(String fn)
+    {
+        List <SupportFunction> res = new ArrayList<SupportFunction>();
+        try
+        {
+            File f = new File(fn);
+            Scanner sc = new Scanner(f);
+            sc.useLocale(Locale.ENGLISH);
+            int dim = sc.nextInt ();
+            int n = sc.nextInt ();
+            /* For each polyhedron */
+            for (int i = 0 ; i < n ; i++)
+            {
+                int m = sc.nextInt();
+                ConvexPolyhedronSupportFunction p = new ConvexPolyhedronSupportFunction();
+                /* For each halfspace */
+                for (int j = 0 ; j < m ; j++)
+                {
+                    int nnz = sc.nextInt();
+                    int[] idx = new int[nnz];
+                    double[] a = new double[nnz];
+                    double b;
+                    for (int k = 0 ; k < nnz ; k++)
+                    {
+                        idx[k] = sc.nextInt();
+                        a[k] = sc.nextDouble();
+                    }
+                    b = sc.nextDouble();
+                    p.addLinearConstraint(dim, idx, a, b);
+                }
+                if (presolve)
+                    p.presolve();
                 res.add(p);
             }
         }
@@ -73,4 +129,40 @@ public class PolyhedraReader
         }
         return res;
     }
+    
+    /** Read zonotopes from file : the dimension and the number of zonotopes, then for each zonotope its number of generators, its center and its generators.
+     ** @param fileName the file name.
+     ** @return the list of zonotopes.
+     **/
+    public List<SupportFunction> readZonotopes(String fn)
+    {
+        List <SupportFunction> res = new ArrayList<SupportFunction>();
+        try
+        {
+            File f = new File(fn);
+            Scanner sc = new Scanner(f);
+            sc.useLocale(Locale.ENGLISH);
+            int dim = sc.nextInt ();
+            int n = sc.nextInt ();
+            /* For each zonotope */
+            for (int i = 0 ; i < n ; i++)
+            {
+                int m = sc.nextInt();
+                double[] c = new double[dim];
+                for (int k = 0 ; k < dim ; k++) c[k] = sc.nextDouble();
+                double[][] g = new double[m][dim];
+                /* For each generator */
+                for (int j = 0 ; j < m ; j++)
+                    for (int k = 0 ; k < dim ; k++) g[j][k] = sc.nextDouble();
+                res.add(new ZonotopeSupportFunction(c, g));
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            e.printStackTrace();
+        }
+        return res;
+    }
+    
+    private boolean presolve;
 }
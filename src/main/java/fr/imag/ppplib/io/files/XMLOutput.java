@@ -43,6 +43,16 @@ public class XMLOutput
      ** @param pp the projector.
      **/
     public void createXML(String fn, PolygonalProjector pp)
+    {
+        createXML(fn, pp.getInnerPolygons(), pp.getOuterPolygons());
+    }
+    
+    /** Create a XML file containing the given inner and outer polygons.
+     ** @param fn the output file name.
+     ** @param inner the inner polygons.
+     ** @param outer the outer polygons.
+     **/
+    public void createXML(String fn, List<Polygon> inner, List<Polygon> outer)
     {
         /* source code inspired by www.mkyong.com/java/how-to-create-an-xml-file-in-java-dom/ */
         
@@ -56,10 +66,10 @@ public class XMLOutput
             /* Add each approximation : inner and outer */
             Element resultsElement = doc.createElement("results");
             Element innerElement = doc.createElement("inner");
-            innerElement.appendChild(polygonSet(doc, pp.getInnerPolygons()));
+            innerElement.appendChild(polygonSet(doc, inner));
             resultsElement.appendChild(innerElement);
             Element outerElement = doc.createElement("outer");
-            outerElement.appendChild(polygonSet(doc, pp.getOuterPolygons()));
+            outerElement.appendChild(polygonSet(doc, outer));
             resultsElement.appendChild(outerElement);
             doc.appendChild(resultsElement);
 
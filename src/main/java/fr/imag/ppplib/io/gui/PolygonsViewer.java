@@ -25,12 +25,16 @@ import fr.imag.ppplib.proj.*;
 import fr.imag.ppplib.proj.plg.Polygon;
 import fr.imag.ppplib.calc.ImplementationFactory;
 import fr.imag.ppplib.calc.sf.SupportFunction;
+import fr.imag.ppplib.calc.sf.CachedSupportFunction;
 import fr.imag.ppplib.io.files.PolyhedraReader;
 import fr.imag.ppplib.io.files.XMLOutput;
 import fr.imag.ppplib.calc.ProjectionCalculator;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
 
 /** Main class of the viewer.
  **/
@@ -45,19 +49,35 @@ public class PolygonsViewer
     private double[] v2;
     private double err;
     private List<SupportFunction> data;
+    private boolean caching = false;
+    private static final int cacheCapacity = 1024;
 
-    /* Projector */
-    PolygonalProjector pp = new UnionPolygonalProjector(true);
+    /* Projector (in a background thread, the view being updated with the intermediate approximations) */
+    PolygonalProjector pp = new UnionPolygonalProjector(true, ThreadsConfiguration.valueOf(ThreadsNumber.TN_ALL));
+    private ExecutorService worker = Executors.newSingleThreadExecutor();
+    private Polygon[] innerProgress;
+    private Polygon[] outerProgress;
+    private long lastProgress;
+    private ProjectionControl control;
 
-    /* Output */
-    private List<Polygon> outerPoly;
-    private List<Polygon> innerPoly;
+    /* Results of the last completed projection (only accessed in the event dispatch thread, as the projector may be computing) */
+    private List<Polygon> innerResults;
+    private List<Polygon> outerResults;
 
     /** Construct a new view 
      **/
     public PolygonsViewer()
     {
         view = new View(this);
+        pp.setWarmStart(true);
+        pp.addProjectionListener(new ProjectionListener()
+        {
+            @Override
+            public void approximationUpdated(int index, Polygon inner, Polygon outer, double error)
+            {
+                progress(index, inner, outer);
+            }
+        });
     }
 
     /** Open a new polyhedra file, and compute the projection on the plane given by (1, 0, ..., 0) (0, 1, 0, ..., 0), with an error of 20%.
@@ -66,9 +86,13 @@ public class PolygonsViewer
      **/
     public void open(String fileName)
     {
-        data = (new PolyhedraReader()).read(fileName);
-        if (data.size() == 0)
+        List<SupportFunction> sets = (new PolyhedraReader()).read(fileName);
+        if (sets.size() == 0)
             throw new ViewerException("ERROR : " + fileName + " is empty !");
+        /* With caching, the evaluations of each set are cached : the directions of the axes are shared by the planes */
+        data = new ArrayList<SupportFunction>(sets.size());
+        for (SupportFunction sf : sets)
+            data.add(caching ? new CachedSupportFunction(sf, cacheCapacity) : sf);
         int dim = data.get(0).getDimension();
         v1 = new double[dim];
         v2 = new double[dim];
@@ -83,12 +107,20 @@ public class PolygonsViewer
         computeNewProjection();
     }
 
-    /** Save results of the projection in a XML file.
+    /** Choose whether the evaluations of each set of the next opened files are cached (disabled by default). It saves the evaluations in the directions shared by the successive planes, such as the axes, at the cost of a cache per set.
+     ** @param caching true to cache the evaluations.
+     **/
+    public void setEvaluationCaching(boolean caching)
+    {
+        this.caching = caching;
+    }
+
+    /** Save the results of the last completed projection in a XML file.
      ** @param fileName the fileName.
      **/
     public void save(String fileName)
     {
-        new XMLOutput().createXML(fileName, pp);
+        new XMLOutput().createXML(fileName, innerResults, outerResults);
     }
 
     /** Change the settings of the projection.
@@ -106,21 +138,98 @@ public class PolygonsViewer
         computeNewProjection();
     }
 
-    /* Compute a new projection. Called when it is necessary. */
+    /* Compute a new projection in the background thread, cancelling the current one. Called when it is necessary. */
     private void computeNewProjection()
     {
-        ProjectionCalculator pc = ImplementationFactory.getNewProjectionCalculator(v1, v2);
-        pp.computeProjection(data, pc, ErrorType.RELATIVE, err);
-        outerPoly = pp.getOuterPolygons();
-        innerPoly = pp.getInnerPolygons();
-        view.update(innerPoly, outerPoly);
+        final ProjectionCalculator pc = ImplementationFactory.getNewProjectionCalculator(v1, v2);
+        final List<SupportFunction> sets = data;
+        final double e = err;
+        if (control != null)
+            control.cancel();
+        final ProjectionControl c = new ProjectionControl();
+        control = c;
+        worker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                /* Cancelled before its beginning */
+                if (c.isStopped())
+                    return;
+                synchronized (PolygonsViewer.this)
+                {
+                    innerProgress = new Polygon[sets.size()];
+                    outerProgress = new Polygon[sets.size()];
+                }
+                pp.setProjectionControl(c);
+                try
+                {
+                    pp.computeProjection(sets, pc, ErrorType.RELATIVE, e);
+                }
+                catch (final RuntimeException ex)
+                {
+                    /* Reported in the view, as the errors of the other actions */
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            view.showError(ex.getMessage());
+                        }
+                    });
+                    return;
+                }
+                /* Cancelled during the computation : the next one gives the results */
+                if (c.isStopped())
+                    return;
+                final List<Polygon> outer = pp.getOuterPolygons();
+                final List<Polygon> inner = pp.getInnerPolygons();
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        innerResults = inner;
+                        outerResults = outer;
+                        view.update(inner, outer);
+                    }
+                });
+            }
+        });
+    }
+    
+    /* Record an intermediate approximation, and show the current ones (at most every 50 ms). */
+    private synchronized void progress(int index, Polygon inner, Polygon outer)
+    {
+        innerProgress[index] = inner;
+        outerProgress[index] = outer;
+        long now = System.currentTimeMillis();
+        if (now - lastProgress < 50)
+            return;
+        lastProgress = now;
+        final List<Polygon> il = new ArrayList<Polygon>();
+        final List<Polygon> ol = new ArrayList<Polygon>();
+        for (Polygon p : innerProgress)
+            if (p != null)
+                il.add(p);
+        for (Polygon p : outerProgress)
+            if (p != null)
+                ol.add(p);
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                view.update(il, ol);
+            }
+        });
     }
 
-    /** State if results exist.
+    /** State if a projection has been completed.
      ** @return the statement.
      **/
     public boolean existResults()
     {
-        return pp.existResults();
+        return innerResults != null;
     }
 }
@@ -77,6 +77,14 @@ public class View extends JFrame
         pp.repaint();
     }
     
+    /** Show an error which occurred during a computation.
+     ** @param message the message of the error.
+     **/
+    public void showError(String message)
+    {
+        JOptionPane.showMessageDialog(this, message, "Projection Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
     private class SettingsPane extends JToolBar implements ActionListener
     {
         private Button openButton = new Button("/fr/imag/ppplib/icons/open");
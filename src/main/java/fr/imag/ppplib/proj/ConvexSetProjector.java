@@ -48,6 +48,42 @@ public interface ConvexSetProjector
      **/
     Polygon getOuterPolygon();
     
+    /** Add a listener of the progress of the next computations. By default, the progress is not published and the listener is ignored.
+     ** @param l the listener.
+     **/
+    default void addProjectionListener(ProjectionListener l)
+    {
+    }
+    
+    /** Remove a listener of the progress of the computations.
+     ** @param l the listener.
+     **/
+    default void removeProjectionListener(ProjectionListener l)
+    {
+    }
+    
+    /** Choose whether the refinement state of a computation is kept for the next one. With warm start, a new computation of the same convex set (same support function object, which must not have been modified) on the same plane starts from the previous approximations: a coarser error needs no evaluation, a finer one refines only the edges whose error is too large. On another plane, the previous directions are used as first directions, which is cheap for a nearby plane. By default, the flag is ignored.
+     ** @param warmStart true to keep the refinement state.
+     **/
+    default void setWarmStart(boolean warmStart)
+    {
+    }
+    
+    /** Set the control of the next computations (cancellation, deadline). By default, the control is ignored.
+     ** @param control the control, null for none.
+     **/
+    default void setProjectionControl(ProjectionControl control)
+    {
+    }
+    
+    /** State if the last computation has been stopped by its control before reaching the required error : the polygons are valid, but coarser.
+     ** @return the statement, false by default.
+     **/
+    default boolean isPartial()
+    {
+        return false;
+    }
+    
     /** Provide a new instance of the implementation of the ConvexSetProjector.
      ** @return the instance.
      **/
@@ -23,14 +23,15 @@ package fr.imag.ppplib.proj;
 
 import fr.imag.ppplib.calc.sf.SupportFunction;
 import fr.imag.ppplib.calc.sf.ConvexHullSupportFunction;
+import fr.imag.ppplib.calc.sf.CachedSupportFunction;
 import fr.imag.ppplib.calc.ProjectionCalculator;
 import fr.imag.ppplib.proj.plg.Polygon;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 
-/** An implementation of PolygonalProjector, to compute the projection of the linear interpolation of convex sets described by their support function, i.e. the union of the convex hulls of each successive couple of convex sets.
+/** An implementation of PolygonalProjector, to compute the projection of the linear interpolation of convex sets described by their support function, i.e. the union of the convex hulls of each successive couple of convex sets. Each set belongs to two hulls : optionally, its evaluations are cached and shared by both.
  **/
 
 public class LinearInterpolationPolygonalProjector implements PolygonalProjector
@@ -50,28 +51,104 @@ public class LinearInterpolationPolygonalProjector implements PolygonalProjector
         upp = new UnionPolygonalProjector(ignoreImpossible);
     }
     
+    /** Create a new LinearInterpolationPolygonalProjector which projects the convex hulls concurrently, with a custom behavior for the sets that are impossible to project.
+     ** @param ignoreImpossible choice for behavior.
+     ** @param tc the threads configuration (sequential computations if it is sequential).
+     **/
+    public LinearInterpolationPolygonalProjector(boolean ignoreImpossible, ThreadsConfiguration tc)
+    {
+        upp = new UnionPolygonalProjector(ignoreImpossible, tc);
+        concurrent = !tc.isSequential();
+    }
+    
     @Override
     public void computeProjection(List <? extends SupportFunction> convSets, ProjectionCalculator pc, ErrorType et, double err)
     {
-        /* Generate the list of convex hulls */
-        List <SupportFunction> chspl = new ArrayList <SupportFunction>(convSets.size()-1);
-        Iterator <? extends SupportFunction> it = convSets.iterator();
-        SupportFunction curr = null;
-        if (it.hasNext())
-            curr = it.next();
-        while (it.hasNext())
+        /* With sharing, each set is wrapped once in a cache, so that its evaluations are shared by the two hulls it belongs to (with warm start, the wrapper of the same set is kept) */
+        int n = convSets.size();
+        SupportFunction[] sfs = convSets.toArray(new SupportFunction[n]);
+        List <SupportFunction> cached = new ArrayList <SupportFunction>(n);
+        for (int i = 0 ; i < n ; i++)
+        {
+            if (!sharing)
+                cached.add(sfs[i]);
+            else if (warmStart && i < sets.size() && sets.get(i) == sfs[i] && cachedSets.get(i) != sfs[i])
+                cached.add(cachedSets.get(i));
+            else
+                cached.add(new CachedSupportFunction(sfs[i], cacheCapacity));
+        }
+        
+        /* Generate the list of convex hulls (with warm start, the hull of the same couple of sets is kept, for the refinement state of its projection) */
+        List <SupportFunction> chspl = new ArrayList <SupportFunction>(Math.max(0, n-1));
+        for (int k = 0 ; k+1 < n ; k++)
+        {
+            if (warmStart && k < hulls.size() && sets.get(k) == sfs[k] && sets.get(k+1) == sfs[k+1])
+                chspl.add(hulls.get(k));
+            else
+            {
+                /* A set belongs to two hulls, which may be projected concurrently : one of them works on a clone (which shares the cache, if any) */
+                List <SupportFunction> chl = new ArrayList <SupportFunction>(2);
+                chl.add(concurrent ? cached.get(k).clone() : cached.get(k));
+                chl.add(cached.get(k+1));
+                chspl.add(new ConvexHullSupportFunction(chl));
+            }
+        }
+        if (warmStart)
         {
-            List <SupportFunction> chl = new ArrayList <SupportFunction>(2);
-            chl.add(curr);
-            curr = it.next();
-            chl.add(curr);
-            chspl.add(new ConvexHullSupportFunction(chl));
+            sets = Arrays.asList(sfs);
+            cachedSets = cached;
+            hulls = chspl;
         }
         
         /* Compute the projection of the union of the convex hulls */
         upp.computeProjection(chspl, pc, et, err);
     }   
     
+    /** Choose whether the evaluations of each set are cached and shared by the two convex hulls it belongs to (disabled by default). It saves the evaluations of a set in the same direction by both hulls, at the cost of a cache per set. With warm start, the cache of a set is kept while the same set is given, which must not have been modified.
+     ** @param sharing true to share the evaluations.
+     **/
+    public void setEvaluationSharing(boolean sharing)
+    {
+        this.sharing = sharing;
+    }
+    
+    /** Add a listener of the progress of the next computations. It is called with the index k of each convex hull, of the sets k and k+1.
+     ** @param l the listener.
+     **/
+    @Override
+    public void addProjectionListener(ProjectionListener l)
+    {
+        upp.addProjectionListener(l);
+    }
+    
+    @Override
+    public void removeProjectionListener(ProjectionListener l)
+    {
+        upp.removeProjectionListener(l);
+    }
+    
+    @Override
+    public void setWarmStart(boolean warmStart)
+    {
+        this.warmStart = warmStart;
+        sets = new ArrayList <SupportFunction>();
+        cachedSets = new ArrayList <SupportFunction>();
+        hulls = new ArrayList <SupportFunction>();
+        upp.setWarmStart(warmStart);
+    }
+    
+    @Override
+    public void setProjectionControl(ProjectionControl control)
+    {
+        upp.setProjectionControl(control);
+    }
+    
+    @Override
+    public boolean isPartial()
+    {
+        return upp.isPartial();
+    }
+    
     @Override
     public List <Polygon> getInnerPolygons()
     {
@@ -91,5 +168,12 @@ public class LinearInterpolationPolygonalProjector implements PolygonalProjector
     }
 
     private UnionPolygonalProjector upp;
+    private boolean warmStart = false;
+    private boolean concurrent = false;
+    private boolean sharing = false;
+    private List <SupportFunction> sets = new ArrayList <SupportFunction>();
+    private List <SupportFunction> cachedSets = new ArrayList <SupportFunction>();
+    private List <SupportFunction> hulls = new ArrayList <SupportFunction>();
+    private static final int cacheCapacity = 256;
 }
 
@@ -0,0 +1,341 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.proj;
+
+import fr.imag.ppplib.calc.sf.SupportFunction;
+import fr.imag.ppplib.calc.sf.SupportCache;
+import fr.imag.ppplib.calc.sf.CachedSupportFunction;
+import fr.imag.ppplib.calc.ProjectionCalculator;
+import fr.imag.ppplib.calc.ImplementationFactory;
+import fr.imag.ppplib.proj.plg.Polygon;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/** A projector of a union of convex sets on several planes at once (e.g. all the coordinate planes, for a scatter-plot matrix). The directions of the axes of the planes are evaluated once for each set, and shared by all the planes (two planes with a common vector share two directions); then the planes are projected concurrently, each of them as by a UnionPolygonalProjector.
+ **/
+
+public class MultiPlanePolygonalProjector
+{
+    /** Create a new MultiPlanePolygonalProjector with a default behavior: it crashes if one convex set is impossible to project, and the computations are sequential.
+     **/
+    public MultiPlanePolygonalProjector()
+    {
+        this(false, new ThreadsConfiguration(1));
+    }
+    
+    /** Create a new MultiPlanePolygonalProjector with a custom behavior for the sets that are impossible to project, and a threads configuration (shared by the planes and by the sets of each plane).
+     ** @param ignoreImpossible choice for behavior.
+     ** @param tc the threads configuration.
+     **/
+    public MultiPlanePolygonalProjector(boolean ignoreImpossible, ThreadsConfiguration tc)
+    {
+        this.ignoreImpossible = ignoreImpossible;
+        this.tc = tc;
+    }
+    
+    /** Give all the coordinate planes (e_i, e_j), i &lt; j, of a vectorspace.
+     ** @param dim the dimension of the vectorspace.
+     ** @return the list of planes, each of them as its two vectors.
+     **/
+    public static List <double[][]> coordinatePlanes(int dim)
+    {
+        List <double[][]> res = new ArrayList <double[][]>(dim * (dim - 1) / 2);
+        for (int i = 0 ; i < dim ; i++)
+        {
+            for (int j = i + 1 ; j < dim ; j++)
+            {
+                double[][] plane = new double[2][dim];
+                plane[0][i] = 1;
+                plane[1][j] = 1;
+                res.add(plane);
+            }
+        }
+        return res;
+    }
+    
+    /** Compute the projections on the given planes.
+     ** @param convSets a list of convex sets described by their support function.
+     ** @param planes the list of planes, each of them as its two vectors.
+     ** @param et the type of error.
+     ** @param err the maximum error.
+     ** @exception PolygonalProjectorException thrown if there is no plane.
+     **/
+    public void computeProjections(List <? extends SupportFunction> convSets, List <double[][]> planes, ErrorType et, double err)
+    {
+        /* Initialization : the projection calculators, and the directions of their axes (without duplicates) */
+        int m = planes.size();
+        if (m == 0)
+            throw new PolygonalProjectorException(npMessage);
+        ProjectionCalculator[] pcs = new ProjectionCalculator[m];
+        List <double[]> axes = new ArrayList <double[]>();
+        for (int k = 0 ; k < m ; k++)
+        {
+            pcs[k] = ImplementationFactory.getNewProjectionCalculator(planes.get(k)[0], planes.get(k)[1]);
+            for (double[] d : dAxes)
+            {
+                double[] a = pcs[k].toOriginalSpace(d);
+                if (!contains(axes, a))
+                    axes.add(a);
+            }
+        }
+        
+        /* Evaluation of the shared directions for each set, in a read only cache (the other directions don't evict them) */
+        int n = convSets.size();
+        SupportFunction[] sets = convSets.toArray(new SupportFunction[n]);
+        double[][] dirs = axes.toArray(new double[axes.size()][]);
+        RuntimeException[] setFailures = new RuntimeException[n];
+        SharingTask st = new SharingTask(sets, dirs, setFailures, 0, n);
+        if (tc.getPool() == null)
+            st.share();
+        else
+            tc.getPool().invoke(st);
+        /* A set impossible to evaluate is impossible to project : the first failure is thrown, or the set is ignored in function of the choosen behavior */
+        List <SupportFunction> shared = new ArrayList <SupportFunction>(n);
+        for (int i = 0 ; i < n ; i++)
+        {
+            if (setFailures[i] == null)
+                shared.add(sets[i]);
+            else if (!ignoreImpossible)
+                throw setFailures[i];
+        }
+        sets = shared.toArray(new SupportFunction[shared.size()]);
+        
+        /* Projections of the planes */
+        innerPolygons = new ArrayList <List <Polygon>>(m);
+        outerPolygons = new ArrayList <List <Polygon>>(m);
+        UnionPolygonalProjector[] upps = new UnionPolygonalProjector[m];
+        RuntimeException[] failures = new RuntimeException[m];
+        PlanesTask pt = new PlanesTask(sets, pcs, et, err, upps, failures, 0, m);
+        if (tc.getPool() == null)
+            pt.project();
+        else
+            tc.getPool().invoke(pt);
+        
+        /* Results in the order of the planes */
+        partial = false;
+        for (int k = 0 ; k < m ; k++)
+        {
+            if (failures[k] != null)
+                throw failures[k];
+            innerPolygons.add(upps[k].getInnerPolygons());
+            outerPolygons.add(upps[k].getOuterPolygons());
+            partial |= upps[k].isPartial();
+        }
+        
+        /* Update the flag */
+        evaluated = true;
+    }
+    
+    /** Set the control of the next computations (cancellation, deadline), for all the planes.
+     ** @param control the control, null for none.
+     **/
+    public void setProjectionControl(ProjectionControl control)
+    {
+        this.control = control;
+    }
+    
+    /** Give the number of planes of the last computation.
+     ** @return the number of planes.
+     **/
+    public int getNumberOfPlanes()
+    {
+        if (!evaluated)
+            throw new PolygonalProjectorException(nyeMessage);
+        return innerPolygons.size();
+    }
+    
+    /** Give the list of inner polygons (underapproximation) of a plane.
+     ** @param k the index of the plane in the given list.
+     ** @return the list of inner polygons.
+     **/
+    public List <Polygon> getInnerPolygons(int k)
+    {
+        if (!evaluated)
+            throw new PolygonalProjectorException(nyeMessage);
+        return innerPolygons.get(k);
+    }
+    
+    /** Give the list of outer polygons (overapproximation) of a plane.
+     ** @param k the index of the plane in the given list.
+     ** @return the list of outer polygons.
+     **/
+    public List <Polygon> getOuterPolygons(int k)
+    {
+        if (!evaluated)
+            throw new PolygonalProjectorException(nyeMessage);
+        return outerPolygons.get(k);
+    }
+    
+    /** State if the last computation has been stopped by its control before reaching the required error for all the sets and planes.
+     ** @return the statement.
+     **/
+    public boolean isPartial()
+    {
+        if (!evaluated)
+            throw new PolygonalProjectorException(nyeMessage);
+        return partial;
+    }
+    
+    /** State if there exist results.
+     ** @return the statement.
+     **/
+    public boolean existResults()
+    {
+        return evaluated;
+    }
+    
+    /* State if the list contains the vector a */
+    private static boolean contains(List <double[]> l, double[] a)
+    {
+        for (double[] b : l)
+            if (Arrays.equals(a, b))
+                return true;
+        return false;
+    }
+    
+    /* A fork/join task which evaluates the shared directions for a range of sets, and replaces each set by a support function reading them in a cache */
+    private class SharingTask extends RecursiveAction
+    {
+        public SharingTask(SupportFunction[] sets, double[][] dirs, RuntimeException[] failures, int lo, int hi)
+        {
+            this.sets = sets;
+            this.dirs = dirs;
+            this.failures = failures;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > Math.max(1, sets.length / (8 * tc.getParallelism())))
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SharingTask(sets, dirs, failures, lo, mid), new SharingTask(sets, dirs, failures, mid, hi));
+            }
+            else
+                share();
+        }
+        
+        /* Evaluate the directions for the sets of the range, and record the failure of a set impossible to evaluate (a set of another dimension is kept as is, its projection fails later) */
+        public void share()
+        {
+            int a = dirs.length;
+            for (int i = lo ; i < hi ; i++)
+            {
+                if (sets[i].getDimension() != dirs[0].length)
+                    continue;
+                try
+                {
+                    SupportCache cache = new SupportCache(a);
+                    new CachedSupportFunction(sets[i], cache).evaluate(dirs, a, new double[a], new double[a][sets[i].getDimension()]);
+                    sets[i] = new CachedSupportFunction(sets[i], cache, true);
+                }
+                catch (RuntimeException e)
+                {
+                    failures[i] = e;
+                }
+            }
+        }
+        
+        private final SupportFunction[] sets;
+        private final double[][] dirs;
+        private final RuntimeException[] failures;
+        private final int lo;
+        private final int hi;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    /* A fork/join task which projects a range of planes. With several planes at the same time, each of them works on clones of the sets. */
+    private class PlanesTask extends RecursiveAction
+    {
+        public PlanesTask(SupportFunction[] sets, ProjectionCalculator[] pcs, ErrorType et, double err, UnionPolygonalProjector[] upps, RuntimeException[] failures, int lo, int hi)
+        {
+            this.sets = sets;
+            this.pcs = pcs;
+            this.et = et;
+            this.err = err;
+            this.upps = upps;
+            this.failures = failures;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > 1)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new PlanesTask(sets, pcs, et, err, upps, failures, lo, mid), new PlanesTask(sets, pcs, et, err, upps, failures, mid, hi));
+            }
+            else
+                project();
+        }
+        
+        /* Project the sets on the planes of the range. When the planes are enough to occupy the pool, the union of each plane is projected inline, in the thread of the plane; otherwise it is projected over the same pool, from one of its workers: its invoke is then a fork and a join, which helps the other tasks while waiting */
+        public void project()
+        {
+            boolean concurrent = tc.getPool() != null && pcs.length > 1;
+            ThreadsConfiguration utc = concurrent && pcs.length >= tc.getParallelism() ? new ThreadsConfiguration(1) : tc;
+            for (int k = lo ; k < hi ; k++)
+            {
+                List <SupportFunction> l = new ArrayList <SupportFunction>(sets.length);
+                for (SupportFunction sf : sets) l.add(concurrent ? sf.clone() : sf);
+                upps[k] = new UnionPolygonalProjector(ignoreImpossible, utc);
+                upps[k].setProjectionControl(control);
+                try
+                {
+                    upps[k].computeProjection(l, pcs[k], et, err);
+                }
+                catch (RuntimeException e)
+                {
+                    failures[k] = e;
+                }
+            }
+        }
+        
+        private final SupportFunction[] sets;
+        private final ProjectionCalculator[] pcs;
+        private final ErrorType et;
+        private final double err;
+        private final UnionPolygonalProjector[] upps;
+        private final RuntimeException[] failures;
+        private final int lo;
+        private final int hi;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    private List <List <Polygon>> innerPolygons;
+    private List <List <Polygon>> outerPolygons;
+    private boolean evaluated = false;
+    private boolean partial = false;
+    private ProjectionControl control;
+    private final boolean ignoreImpossible;
+    private final ThreadsConfiguration tc;
+    private static final double[][] dAxes = new double[][] {{0, 1}, {-1, 0}, {0, -1}, {1, 0}};
+    private static final String npMessage = "There is no plane to project on.";
+    private static final String nyeMessage = "This projector has not been yet evaluated.";
+}
@@ -24,15 +24,15 @@ package fr.imag.ppplib.proj;
 import fr.imag.ppplib.calc.sf.SupportFunction;
 import fr.imag.ppplib.calc.sf.ProjectionSupportFunction;
 import fr.imag.ppplib.calc.ProjectionCalculator;
-import fr.imag.ppplib.calc.VectorCalculator;
-import fr.imag.ppplib.calc.ImplementationFactory;
 import fr.imag.ppplib.proj.plg.Polygon;
 import fr.imag.ppplib.proj.plg.DefaultPolygon;
 
 import java.util.List;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-/** A multithreads implementation for the projection of a convex set.
+/** A multithreads implementation for the projection of a convex set. The successive approximations are computed frontier by frontier, the support function being evaluated in parallel over the fork/join pool of its ThreadsConfiguration, whose threads are reused from one computation to another.
  **/
 
 public class MultithreadsConvexSetProjector implements ConvexSetProjector
@@ -46,20 +46,61 @@ public class MultithreadsConvexSetProjector implements ConvexSetProjector
      **/
     public MultithreadsConvexSetProjector(ThreadsNumber tn)
     {
-        this.tn = tn;
+        this.tc = ThreadsConfiguration.valueOf(tn);
+    }
+    
+    /** Construct a new MultithreadsConvexSetProjector with a custom parallelism level. The threads are shared with the other projectors of the same level.
+     ** @param parallelism the number of threads.
+     **/
+    public MultithreadsConvexSetProjector(int parallelism)
+    {
+        this.tc = new ThreadsConfiguration(parallelism);
+    }
+    
+    /** Construct a new MultithreadsConvexSetProjector with a custom threads configuration (e.g. a fork/join pool supplied by the caller). A configuration with one task per set gives sequential computations.
+     ** @param tc the threads configuration.
+     **/
+    public MultithreadsConvexSetProjector(ThreadsConfiguration tc)
+    {
+        this.tc = tc;
+    }
+    
+    /** Set a budget for the next computations. With a budget, the local approximation with the largest error is always refined first, and the refinement stops when the error is reached or when the budget is exhausted: the result is then the tightest pair of polygons reached within the budget (see getError()). In this mode, the successive approximations are sequential.
+     ** @param maxEvaluations the maximum number of evaluations of the support function (the four first ones are always made), 0 for no limit.
+     ** @param maxTime the maximum computation time in milliseconds, 0 for no limit.
+     **/
+    public void setBudget(int maxEvaluations, long maxTime)
+    {
+        if (maxEvaluations < 0 || maxTime < 0)
+            throw new ConvexSetProjectorException(budMessage);
+        this.maxEvaluations = maxEvaluations;
+        this.maxTime = maxTime;
+    }
+    
+    @Override
+    public void setWarmStart(boolean warmStart)
+    {
+        this.warmStart = warmStart;
+        if (!warmStart)
+            lastRing = null;
+    }
+    
+    /** Give the error reached by the last computation, i.e. the largest distance between an edge of the inner polygon and the outer polygon. Without budget, it is lower than the required error.
+     ** @return the absolute error.
+     **/
+    public double getError()
+    {
+        if (!evaluated)
+            throw new ConvexSetProjectorException(nyeMessage);
+        return error;
     }
     
     @Override
     public void computeProjection(SupportFunction sf, ProjectionCalculator pc, ErrorType et, double err)
     {
+        long start = System.nanoTime();
         try
         {
-            if (!initialized)
-            {
-                vc = ImplementationFactory.getNewVectorCalculator();
-                initialized = true;
-            }
-            
             /* Exceptions */
             if (sf.getDimension() != pc.getDimension())
                 throw new ConvexSetProjectorException(nsvsMessage);
@@ -72,129 +113,121 @@ public class MultithreadsConvexSetProjector implements ConvexSetProjector
             SupportFunction psf = new ProjectionSupportFunction(sf, pc);
             innerPolygon = new DefaultPolygon();
             outerPolygon = new DefaultPolygon();
+            double[] p1 = pc.toOriginalSpace(e1);
+            double[] p2 = pc.toOriginalSpace(e2);
+            RefinementRing previous = lastRing;
+            lastRing = null;
             
-            /* First approximations */
-            List <LocalApproximation> fa = new LinkedList <LocalApproximation>();
-            psf.evaluate(dNorth);
-            double[] north = psf.getSupportVector();
-            psf.evaluate(dWest);
-            double[] west = psf.getSupportVector();
-            psf.evaluate(dSouth);
-            double[] south = psf.getSupportVector();
-            psf.evaluate(dEast);
-            double[] east = psf.getSupportVector();
-            /* Reject equals points and compute local approximations */
-            if (!vc.areEquals(north, west))
-                fa.add(new LocalApproximation(dNorth, north, dWest, west));
-            if (!vc.areEquals(west, south))
-                fa.add(new LocalApproximation(dWest, west, dSouth, south));
-            if (!vc.areEquals(south, east))
-                fa.add(new LocalApproximation(dSouth, south, dEast, east));
-            if (!vc.areEquals(east, north))
-                fa.add(new LocalApproximation(dEast, east, dNorth, north));
-            /* If fa is empty, then the projection is a point */
-            if (fa.isEmpty())
+            /* First approximations : the previous ring for the same set on the same plane (warm start), otherwise the ring of the support vectors in the four axis directions (equal points are merged, a single point means that the projection is a point) */
+            RefinementRing ring;
+            boolean samePlane = previous != null && sf == lastSf && Arrays.equals(p1, lastP1) && Arrays.equals(p2, lastP2);
+            double[] values = new double[4];
+            double[][] vectors = new double[4][2];
+            if (samePlane)
+                ring = previous;
+            else
             {
-                Polygon res = new DefaultPolygon();
-                List <double[]> l = new LinkedList <double[]>();
-                l.add(north);
-                res.addVertices(l);
-                innerPolygon = res;
-                outerPolygon = res;
+                ring = new RefinementRing();
+                psf.evaluate(dAxes, 4, values, vectors);
+                for (int i = 0 ; i < 4 ; i++) ring.addSample(dAxes[i], vectors[i]);
+                ring.close();
             }
             /* If necessary, compute the absolute error in function of the relative : abserr = relerr * max(h,w), h height, w width */
             if (et == ErrorType.RELATIVE)
-            {
-                double w = east[0] - west[0];
-                double h = north[1] - south[1];
-                if (h > w)
-                    err = h * err;
-                else
-                    err = w * err;
-            }
+                err = ring.getExtent() * err;
+            /* Warm start on another plane : a direction of each vertex of the previous ring gives a first vertex, unless the error is much coarser (too many vertices) */
+            if (previous != null && !samePlane && err <= 2 * lastErr && ring.size() > 1)
+                ring = seed(psf, previous.getVertexDirections(dAxes), vectors);
             
-            /* Successive multithreads approximations */
-            /* Threads management */
-            /* Only one */
-            List <SuccessiveApproximationThread> tl = new LinkedList <SuccessiveApproximationThread>();
-            int nbla = fa.size();
-            if (tn == ThreadsNumber.TN_1)
-            {
-                tl.add(new SuccessiveApproximationThread(fa, psf, err));
-            }
-            /* Two */
-            else if (tn == ThreadsNumber.TN_2)
+            /* Successive approximations : largest error first within the budget, otherwise frontier by frontier, the normals of each frontier being evaluated in the current thread or in parallel over a fork/join pool (one clone of the projection support function per thread, dropped at the end of the computation) */
+            boolean budget = maxEvaluations > 0 || maxTime > 0;
+            if (budget)
             {
-                if (nbla == 2)
-                {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 1), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(1, 2), psf, err));
-                }
-                else if (nbla == 3)
-                {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 2), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(2, 3), psf, err));
-                }
-                else if (nbla == 4)
+                /* By chunks, doubling the number of vertices, to publish the intermediate approximations */
+                int maxRefinements = maxEvaluations > 0 ? Math.max(0, maxEvaluations - 4) : Integer.MAX_VALUE;
+                long maxNanos = maxTime > 0 ? maxTime * 1000000L : Long.MAX_VALUE;
+                while (maxRefinements > 0 && ring.getError() > err && !stopped())
                 {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 2), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(2, 4), psf, err));
+                    publish(ring);
+                    int chunk = Math.min(ring.size(), maxRefinements);
+                    int nbr = ring.refineLargestErrorFirst(psf, err, chunk, start, maxNanos, control);
+                    maxRefinements -= nbr;
+                    if (nbr < chunk)
+                        break;
                 }
             }
-            /* At most four (as possible) */
             else
             {
-                if (nbla == 2)
+                ForkJoinPool pool = tc.getPool();
+                SupportFunction[] psfs = null;
+                if (pool != null && ring.size() > 1)
                 {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 1), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(1, 2), psf, err));
+                    psfs = new SupportFunction[pool.getParallelism()];
+                    psfs[0] = psf;
+                    for (int i = 1 ; i < psfs.length ; i++) psfs[i] = psf.clone();
                 }
-                else if (nbla == 3)
+                /* Publishing each intermediate approximation */
+                while (ring.getError() > err && !stopped())
                 {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 1), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(1, 2), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(2, 3), psf, err));
+                    publish(ring);
+                    if (psfs == null)
+                        ring.refineFrontier(psf, err);
+                    else
+                        ring.refineFrontier(psfs, pool, err);
                 }
-                else if (nbla == 4)
-                {
-                    tl.add(new SuccessiveApproximationThread(fa.subList(0, 1), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(1, 2), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(2, 3), psf, err));
-                    tl.add(new SuccessiveApproximationThread(fa.subList(3, 4), psf, err));
-                }
-            }
-            /* Calculus */
-            int nbt = tl.size();
-            for (int i = 1 ; i < nbt ; i++) tl.get(i).start();
-            tl.get(0).run();
-            try
-            {
-                for (int i = 1 ; i < nbt ; i++) tl.get(i).join();
-            }
-            catch (InterruptedException e)
-            {
-                throw new ConvexSetProjectorException(e.getMessage());
-            }
-            /* Construction of the solution */
-            List <LocalApproximation> lal = new LinkedList <LocalApproximation>();
-            for (SuccessiveApproximationThread t : tl) lal.addAll(t.getResult());
-            List <double[]> il = new LinkedList <double[]>();
-            List <double[]> ol = new LinkedList <double[]>();
-            for (LocalApproximation la : lal)
-            {
-                il.add(la.getInnerVertice());
-                ol.addAll(la.getOuterVertices());
             }
+            List <double[]> il = ring.getInnerVertices();
+            List <double[]> ol = ring.getOuterVertices();
+            error = ring.getError();
+            if (warmStart)
+                lastRing = ring;
             innerPolygon.addVertices(il);
             outerPolygon.addVertices(ol);
+            if (warmStart)
+            {
+                lastSf = sf;
+                lastP1 = p1;
+                lastP2 = p2;
+                lastErr = err;
+            }
         }
         catch(Exception e)
         {
             throw new ConvexSetProjectorException(cseMessage);
         }
         
-        /* Flag update */
+        /* Flags update */
         evaluated = true;
+        partial = stopped() && error > err;
+        
+        /* Final approximation */
+        for (ProjectionListener l : listeners) l.approximationUpdated(0, innerPolygon, outerPolygon, error);
+    }
+    
+    @Override
+    public void setProjectionControl(ProjectionControl control)
+    {
+        this.control = control;
+    }
+    
+    @Override
+    public boolean isPartial()
+    {
+        if (!evaluated)
+            throw new ConvexSetProjectorException(nyeMessage);
+        return partial;
+    }
+    
+    @Override
+    public void addProjectionListener(ProjectionListener l)
+    {
+        listeners.add(l);
+    }
+    
+    @Override
+    public void removeProjectionListener(ProjectionListener l)
+    {
+        listeners.remove(l);
     }
     
     @Override
@@ -216,155 +249,97 @@ public class MultithreadsConvexSetProjector implements ConvexSetProjector
     @Override
     public ConvexSetProjector newInstance()
     {
-        return new MultithreadsConvexSetProjector(tn);
+        MultithreadsConvexSetProjector res = new MultithreadsConvexSetProjector(tc);
+        res.maxEvaluations = maxEvaluations;
+        res.maxTime = maxTime;
+        res.warmStart = warmStart;
+        res.control = control;
+        return res;
     }
     
-    /* A class with references to two inner polygon vertices and one outer polygon vectex, to make easily successive approximations. */
-    private class LocalApproximation
+    /* Give a new ring from the given directions (counterclockwise; the support vectors of the axis directions are already known), evaluated at once (batch evaluation). */
+    private RefinementRing seed(SupportFunction psf, List <double[]> directions, double[][] axesVectors)
     {
-        /* Construct a new local approximation with inner vertices and directions to describe support lines. */
-        public LocalApproximation(double[] d1, double[] innerV1, double[] d2, double[] innerV2)
-        {
-            this.innerV1 = innerV1;
-            this.innerV2 = innerV2;
-            this.d1 = d1;
-            this.d2 = d2;
-            outerV = intersectionPoint(d1, innerV1, d2, innerV2);
-            n = turningRightOrthogonal(vc.difference(innerV2, innerV1));
-            error = computeError();
-        }
-        
-        /* Return the "begining" inner vertice (vertice 1) */
-        public double[] getInnerVertice()
-        {
-            return innerV1;
-        }
-        
-        /* Return the outer vertice */
-        public List<double[]> getOuterVertices()
-        {
-            List<double[]> l = new LinkedList <double[]> ();
-            if (innerV1[0] != outerV[0] || innerV1[1] != outerV[1])
-                l.add(innerV1);
-            l.add(outerV);
-            return l;
-        }
-        
-        /* Return the error of the approximation */
-        public double getError()
-        {
-            return error;
-        }
-        
-        /* Compute the refinement of the approximation, given the projection support function */
-        public List <LocalApproximation> refine(SupportFunction psf)
-        {
-            psf.evaluate(n);
-            double[] innerV = psf.getSupportVector();
-            List <LocalApproximation> res = new LinkedList <LocalApproximation>();
-            res.add(new LocalApproximation(d1, innerV1, n, innerV));
-            res.add(new LocalApproximation(n, innerV, d2, innerV2));
-            return res;
-        }
-        
-        /* Give the intersection point of the support lines d1*x = d1*p1 and d2*x = d2*p2.
-         * NB : a little error implies closed points and closed slopes. If the calculus is impossible, then the error is too small for the precision of double.
-         */
-        private double[] intersectionPoint(double[] d1, double[] p1, double[] d2, double[] p2)
-        {
-            /* Transform to lines t*u1+p1 and tp*u2+p2 */
-            double[] u1 = turningRightOrthogonal(d1);
-            double[] u2 = turningRightOrthogonal(d2);
-            double det = u2[0]*u1[1] - u2[1]*u1[0];
-            /* Exception if too small error */
-            if (det == 0)
-                new ConvexSetProjectorException(tseMessage);
-            double tp = ((p2[1]-p1[1])*u1[0] - (p2[0]-p1[0])*u1[1])/det;
-            return new double[] {u2[0]*tp + p2[0], u2[1]*tp + p2[1]};
-        }
-        
-        /* Give a "turning right" orthogonal vector (2d vector) */
-        private double[] turningRightOrthogonal(double[] v)
+        int m = directions.size();
+        double[][] dirs = new double[m][];
+        int size = 0;
+        for (double[] d : directions)
+            if (axis(d) < 0)
+                dirs[size++] = d;
+        double[] values = new double[size];
+        double[][] vectors = new double[size][2];
+        /* Only axis directions : nothing to evaluate */
+        if (size > 0)
+            psf.evaluate(dirs, size, values, vectors);
+        RefinementRing res = new RefinementRing();
+        int k = 0;
+        for (double[] d : directions)
         {
-            return new double[] {v[1], -v[0]};
-        }
-        
-        /* Compute the error of the approximation */
-        private double computeError()
-        {
-            double normN = vc.norm(n);
-            n[0] /= normN;
-            n[1] /= normN;
-            double[] v = vc.difference(outerV, innerV1);            
-            return vc.dotProduct(n, v);
+            int a = axis(d);
+            if (a < 0)
+                res.addSample(d, vectors[k++]);
+            else
+                res.addSample(d, axesVectors[a]);
         }
-        
-        private final double[] innerV1;
-        private final double[] innerV2;
-        private final double[] d1;
-        private final double[] d2;
-        private final double[] outerV;
-        private final double[] n;
-        private final double error;
+        res.close();
+        return res;
     }
     
-    /* A class to compute the succesive approximations into a thread */
-    private class SuccessiveApproximationThread extends Thread
+    /* Give the index of the axis direction d, -1 if d is not an axis direction. */
+    private static int axis(double[] d)
     {
-        /* Create a new thread, with a list of LocalApproximation to refine, the projection support function (will be cloned), and an absolute error. */
-        public SuccessiveApproximationThread(List <LocalApproximation> l, SupportFunction psf, double absErr)
-        {
-            this.l = l;
-            this.psf = psf.clone();
-            this.absErr = absErr;
-        }
-        
-        /* Compute the successive approximations. */
-        public void run()
-        {
-            for(LocalApproximation la : l) resultList.addAll(stepSuccessiveApproximations(la));
-        }
-        
-        /* Give the result list */
-        public List <LocalApproximation> getResult()
-        {
-            return resultList;
-        }
-        
-        /* A step of successive approximations */
-        private List <LocalApproximation> stepSuccessiveApproximations(LocalApproximation la)
-        {
-            List <LocalApproximation> res = new LinkedList <LocalApproximation> ();
-            if (la.getError() > absErr)
-            {
-                List <LocalApproximation> laRefined = la.refine(psf);
-                for (LocalApproximation lap : laRefined) res.addAll(stepSuccessiveApproximations(lap));
-            }
-            else
-                res.add(la);
-            return res;
-        }
-        
-        private List <LocalApproximation> resultList = new LinkedList <LocalApproximation> ();
-        private final List <LocalApproximation> l;
-        private final SupportFunction psf;
-        private final double absErr;
+        for (int a = 0 ; a < 4 ; a++)
+            if (Arrays.equals(d, dAxes[a]))
+                return a;
+        return -1;
+    }
+    
+    /* State if the computation has to stop */
+    private boolean stopped()
+    {
+        return control != null && control.isStopped();
+    }
+    
+    /* Publish the current approximation of the ring to the listeners (intermediate approximation) */
+    private void publish(RefinementRing ring)
+    {
+        if (listeners.isEmpty())
+            return;
+        Polygon inner = new DefaultPolygon();
+        inner.addVertices(ring.getInnerVertices());
+        Polygon outer = new DefaultPolygon();
+        outer.addVertices(ring.getOuterVertices());
+        double e = ring.getError();
+        for (ProjectionListener l : listeners) l.approximationUpdated(0, inner, outer, e);
     }
     
-    private ThreadsNumber tn = ThreadsNumber.TN_1;
-    private VectorCalculator vc;
+    private ThreadsConfiguration tc = new ThreadsConfiguration(1);
+    private int maxEvaluations = 0;
+    private long maxTime = 0;
+    private double error;
+    private ProjectionControl control;
+    private boolean partial;
+    private boolean warmStart = false;
+    private RefinementRing lastRing;
+    private SupportFunction lastSf;
+    private double[] lastP1;
+    private double[] lastP2;
+    private double lastErr;
+    private List <ProjectionListener> listeners = new CopyOnWriteArrayList <ProjectionListener>();
     private Polygon innerPolygon;
     private Polygon outerPolygon;
     private boolean evaluated = false;
-    private boolean initialized = false;
     private static final double[] dNorth = new double[] {0, 1};
     private static final double[] dWest = new double[] {-1, 0};
     private static final double[] dSouth = new double[] {0, -1};
     private static final double[] dEast = new double[] {1, 0};
+    private static final double[][] dAxes = new double[][] {dNorth, dWest, dSouth, dEast};
+    private static final double[] e1 = new double[] {1, 0};
+    private static final double[] e2 = new double[] {0, 1};
     private static final String nsvsMessage = "The convex set and the plane don't live in the same vectorspace.";
     private static final String absMessage = "The absolute error cannot be negative or zero.";
+    private static final String budMessage = "The budget cannot be negative.";
     private static final String relMessage = "The relative error cannot be negative or zero or greater than one.";
-    private static final String tseMessage = "Calculus impossible, because of floating precision : the given error is too small.";
     private static final String cseMessage = "Calculus impossible, maybe because the convex set is empty.";
     private static final String nyeMessage = "No computation has been made yet.";
 }
@@ -49,6 +49,42 @@ public interface PolygonalProjector
      ** @return the list of outer polygons.
      **/
     List <Polygon> getOuterPolygons();
+    
+    /** Add a listener of the progress of the next computations. It is called with the index of each convex set in the given list. By default, the progress is not published and the listener is ignored.
+     ** @param l the listener.
+     **/
+    default void addProjectionListener(ProjectionListener l)
+    {
+    }
+    
+    /** Remove a listener of the progress of the computations.
+     ** @param l the listener.
+     **/
+    default void removeProjectionListener(ProjectionListener l)
+    {
+    }
+
+    /** Choose whether the refinement state of the projection of each convex set is kept for the next computation (see ConvexSetProjector.setWarmStart). The sets are matched by their index in the given list. By default, the flag is ignored.
+     ** @param warmStart true to keep the refinement states.
+     **/
+    default void setWarmStart(boolean warmStart)
+    {
+    }
+
+    /** Set the control of the next computations (cancellation, deadline). When the computations are stopped, the refinements end, and the sets not yet projected are skipped: they have no polygon in the results. By default, the control is ignored.
+     ** @param control the control, null for none.
+     **/
+    default void setProjectionControl(ProjectionControl control)
+    {
+    }
+    
+    /** State if the last computation has been stopped by its control before reaching the required error for all the sets : the polygons are valid, but some of them are coarser, and the sets not yet projected are missing.
+     ** @return the statement, false by default.
+     **/
+    default boolean isPartial()
+    {
+        return false;
+    }
 
     /** State if there exist results.
      ** @return the statement.
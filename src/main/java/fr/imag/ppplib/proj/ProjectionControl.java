@@ -0,0 +1,80 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.proj;
+
+/** A control of the computations of projectors, shared with the threads which make them: a computation can be cancelled (from any thread), or stopped at a deadline. A stopped computation doesn't refine its approximations anymore, and gives the inner and outer polygons reached so far (they are valid, but their error may be greater than the required one: the projector is then partial).
+ **/
+
+public final class ProjectionControl
+{
+    /** Create a new control, without deadline.
+     **/
+    public ProjectionControl() {}
+    
+    /** Create a new control, with a deadline.
+     ** @param timeout the time in milliseconds from now to the deadline.
+     **/
+    public ProjectionControl(long timeout)
+    {
+        setTimeout(timeout);
+    }
+    
+    /** Set the deadline of the computations.
+     ** @param timeout the time in milliseconds from now to the deadline.
+     ** @exception ConvexSetProjectorException thrown if the timeout is negative.
+     **/
+    public void setTimeout(long timeout)
+    {
+        if (timeout < 0)
+            throw new ConvexSetProjectorException(timMessage);
+        deadline = System.nanoTime() + timeout * 1000000L;
+        timed = true;
+    }
+    
+    /** Cancel the computations (the current one and the next ones, until reset).
+     **/
+    public void cancel()
+    {
+        cancelled = true;
+    }
+    
+    /** Remove the cancellation and the deadline, for new computations.
+     **/
+    public void reset()
+    {
+        cancelled = false;
+        timed = false;
+    }
+    
+    /** State if the computations have to stop: they have been cancelled, or the deadline is reached.
+     ** @return the statement.
+     **/
+    public boolean isStopped()
+    {
+        return cancelled || (timed && System.nanoTime() - deadline >= 0);
+    }
+    
+    private volatile boolean cancelled = false;
+    private volatile boolean timed = false;
+    private volatile long deadline;
+    private static final String timMessage = "The timeout cannot be negative.";
+}
@@ -0,0 +1,38 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.proj;
+
+import fr.imag.ppplib.proj.plg.Polygon;
+
+/** Interface for the listeners of the progress of a projection. A listener is called with the intermediate approximations as the refinement proceeds, and with the final one.
+ **/
+
+public interface ProjectionListener
+{
+    /** Called when a new approximation of the projection of a convex set is available. The polygons must not be modified.
+     ** @param index the index of the convex set in the list given to the PolygonalProjector (0 for a ConvexSetProjector).
+     ** @param inner the current inner polygon.
+     ** @param outer the current outer polygon.
+     ** @param error the current absolute error (largest distance between an edge of the inner polygon and the outer polygon).
+     **/
+    void approximationUpdated(int index, Polygon inner, Polygon outer, double error);
+}
@@ -0,0 +1,477 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.proj;
+
+import fr.imag.ppplib.calc.sf.SupportFunction;
+
+import java.util.List;
+import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The core of the successive approximations: a ring of inner vertices, stored in growable primitive arrays, with the local approximation of each edge (from a vertex to the next one). The refinement is iterative (frontiers or heap of edges), without recursion nor intermediate objects.
+ **/
+
+class RefinementRing
+{
+    /* Create an empty ring. */
+    public RefinementRing()
+    {
+        points = new double[2*capacity];
+        dIn = new double[2*capacity];
+        dOut = new double[2*capacity];
+        normals = new double[2*capacity];
+        outers = new double[2*capacity];
+        errors = new double[capacity];
+        next = new int[capacity];
+        work = new int[capacity];
+    }
+    
+    /* Add a sample (direction, support vector) after the last vertex. A sample with the same support vector than the last vertex only widens its normal cone. The samples have to be given counterclockwise. */
+    public void addSample(double[] d, double[] p)
+    {
+        if (n > 0 && points[2*(n-1)] == p[0] && points[2*(n-1)+1] == p[1])
+        {
+            dOut[2*(n-1)] = d[0];
+            dOut[2*(n-1)+1] = d[1];
+            return;
+        }
+        ensureCapacity(n+1);
+        points[2*n] = p[0];
+        points[2*n+1] = p[1];
+        dIn[2*n] = d[0];
+        dIn[2*n+1] = d[1];
+        dOut[2*n] = d[0];
+        dOut[2*n+1] = d[1];
+        n++;
+    }
+    
+    /* Add a vertex p, with the bounds of its normal cone, after the last vertex (the vertices are not merged). */
+    public void addVertex(double[] dIn, double[] p, double[] dOut)
+    {
+        ensureCapacity(n+1);
+        points[2*n] = p[0];
+        points[2*n+1] = p[1];
+        this.dIn[2*n] = dIn[0];
+        this.dIn[2*n+1] = dIn[1];
+        this.dOut[2*n] = dOut[0];
+        this.dOut[2*n+1] = dOut[1];
+        n++;
+    }
+    
+    /* Close the ring after the last sample, and compute the approximation of each edge. */
+    public void close()
+    {
+        /* The last vertex may be the first one */
+        if (n > 1 && points[2*(n-1)] == points[0] && points[2*(n-1)+1] == points[1])
+        {
+            n--;
+            dIn[0] = dIn[2*n];
+            dIn[1] = dIn[2*n+1];
+        }
+        for (int i = 0 ; i < n ; i++) next[i] = (i+1) % n;
+        if (n > 1)
+            for (int i = 0 ; i < n ; i++) computeEdge(i);
+    }
+    
+    /* Give the number of vertices. */
+    public int size()
+    {
+        return n;
+    }
+    
+    /* Refine the frontier, i.e. each edge whose error is greater than absErr: the normals of all these edges are given at once to the support function (batch evaluation). Return false if there was no edge to refine. */
+    public boolean refineFrontier(SupportFunction psf, double absErr)
+    {
+        int size = frontier(absErr);
+        if (size == 0)
+            return false;
+        psf.evaluate(batchDirs, size, batchValues, batchVectors);
+        for (int k = 0 ; k < size ; k++) insert(work[k], batchDirs[k], batchVectors[k]);
+        return true;
+    }
+    
+    /* Refine the frontier as refineFrontier(psf, absErr), but the normals are evaluated in parallel over the pool: one task per support function of psfs (they are not thread-safe), each task taking the next normal to evaluate until there is no more. Return false if there was no edge to refine. */
+    public boolean refineFrontier(SupportFunction[] psfs, ForkJoinPool pool, double absErr)
+    {
+        int size = frontier(absErr);
+        if (size == 0)
+            return false;
+        if (size == 1 || psfs.length == 1)
+            psfs[0].evaluate(batchDirs, size, batchValues, batchVectors);
+        else
+        {
+            AtomicInteger cursor = new AtomicInteger();
+            int tasks = Math.min(size, psfs.length);
+            FrontierTask[] ts = new FrontierTask[tasks];
+            for (int t = 0 ; t < tasks ; t++) ts[t] = new FrontierTask(psfs[t], cursor, size);
+            pool.invoke(new FrontierTasks(ts));
+        }
+        for (int k = 0 ; k < size ; k++) insert(work[k], batchDirs[k], batchVectors[k]);
+        return true;
+    }
+    
+    /* Refine the edge with the largest error first, until the error is lower than absErr or the budget is exhausted (maxRefinements evaluations of psf, maxTime nanoseconds since start) or the control (if any) is stopped. Return the number of refinements. */
+    public int refineLargestErrorFirst(SupportFunction psf, double absErr, int maxRefinements, long start, long maxTime, ProjectionControl control)
+    {
+        if (n < 2)
+            return 0;
+        int size = 0;
+        for (int i = 0 ; i < n ; i++) size = heapPush(size, i);
+        int refinements = 0;
+        while (size > 0 && errors[work[0]] > absErr && refinements < maxRefinements && System.nanoTime() - start < maxTime && (control == null || !control.isStopped()))
+        {
+            int i = work[0];
+            size = heapPop(size);
+            int j = refine(i, psf);
+            refinements++;
+            size = heapPush(size, i);
+            size = heapPush(size, j);
+        }
+        return refinements;
+    }
+    
+    /* Give the largest error of the edges. */
+    public double getError()
+    {
+        double res = 0;
+        if (n > 1)
+            for (int i = 0 ; i < n ; i++) res = Math.max(res, errors[i]);
+        return res;
+    }
+    
+    /* Give the inner vertices, in the order of the ring. */
+    public List <double[]> getInnerVertices()
+    {
+        List <double[]> res = new LinkedList <double[]>();
+        int i = 0;
+        do
+        {
+            res.add(new double[] {points[2*i], points[2*i+1]});
+            i = next[i];
+        }
+        while (i != 0);
+        return res;
+    }
+    
+    /* Give the outer vertices, in the order of the ring (the inner vertex of an edge is given if different from the outer one). */
+    public List <double[]> getOuterVertices()
+    {
+        if (n < 2)
+            return getInnerVertices();
+        List <double[]> res = new LinkedList <double[]>();
+        int i = 0;
+        do
+        {
+            if (points[2*i] != outers[2*i] || points[2*i+1] != outers[2*i+1])
+                res.add(new double[] {points[2*i], points[2*i+1]});
+            res.add(new double[] {outers[2*i], outers[2*i+1]});
+            i = next[i];
+        }
+        while (i != 0);
+        return res;
+    }
+    
+    /* Give the size of the bounding box of the inner vertices : max(h,w), h height, w width. */
+    public double getExtent()
+    {
+        double minX = points[0], maxX = points[0], minY = points[1], maxY = points[1];
+        for (int i = 1 ; i < n ; i++)
+        {
+            minX = Math.min(minX, points[2*i]);
+            maxX = Math.max(maxX, points[2*i]);
+            minY = Math.min(minY, points[2*i+1]);
+            maxY = Math.max(maxY, points[2*i+1]);
+        }
+        return Math.max(maxX - minX, maxY - minY);
+    }
+    
+    /* Give one direction of the normal cone of each vertex, counterclockwise from the first vertex : a bound of the cone if it is one of the given directions, otherwise the bisector of the cone. */
+    public List <double[]> getVertexDirections(double[][] preferred)
+    {
+        List <double[]> res = new LinkedList <double[]>();
+        int i = 0;
+        do
+        {
+            double[] in = new double[] {dIn[2*i], dIn[2*i+1]};
+            double[] out = new double[] {dOut[2*i], dOut[2*i+1]};
+            double bx = in[0] + out[0];
+            double by = in[1] + out[1];
+            double norm = Math.sqrt(bx*bx + by*by);
+            if (contains(preferred, in) || norm == 0)
+                res.add(in);
+            else if (contains(preferred, out))
+                res.add(out);
+            else
+                res.add(new double[] {bx/norm, by/norm});
+            i = next[i];
+        }
+        while (i != 0);
+        return res;
+    }
+    
+    /* Give the first vertex of the ring. */
+    public int first()
+    {
+        return 0;
+    }
+    
+    /* Give the vertex after i in the ring. */
+    public int next(int i)
+    {
+        return next[i];
+    }
+    
+    /* Give the inner vertex i. */
+    public double[] getPoint(int i)
+    {
+        return new double[] {points[2*i], points[2*i+1]};
+    }
+    
+    /* Give the direction of the support line of the edge ending at vertex i. */
+    public double[] getDirectionIn(int i)
+    {
+        return new double[] {dIn[2*i], dIn[2*i+1]};
+    }
+    
+    /* Give the direction of the support line of the edge beginning at vertex i. */
+    public double[] getDirectionOut(int i)
+    {
+        return new double[] {dOut[2*i], dOut[2*i+1]};
+    }
+    
+    /* State if d is one of the given directions. */
+    private static boolean contains(double[][] dirs, double[] d)
+    {
+        for (double[] e : dirs)
+            if (Arrays.equals(e, d))
+                return true;
+        return false;
+    }
+    
+    /* Gather the frontier (the edges whose error is greater than absErr) in work, and their normals in the batch buffers. Return the size of the frontier. */
+    private int frontier(double absErr)
+    {
+        if (n < 2)
+            return 0;
+        ensureWorkCapacity(n);
+        int size = 0;
+        for (int i = 0 ; i < n ; i++)
+            if (errors[i] > absErr)
+                work[size++] = i;
+        ensureBatchCapacity(size);
+        for (int k = 0 ; k < size ; k++)
+        {
+            batchDirs[k][0] = normals[2*work[k]];
+            batchDirs[k][1] = normals[2*work[k]+1];
+        }
+        return size;
+    }
+    
+    /* Refine the edge beginning at vertex i, by evaluating the support function in the direction of its normal. Return the new vertex. */
+    private int refine(int i, SupportFunction psf)
+    {
+        dir[0] = normals[2*i];
+        dir[1] = normals[2*i+1];
+        psf.evaluate(dir);
+        return insert(i, dir, psf.getSupportVector());
+    }
+    
+    /* Insert a new vertex p, of direction d, after the vertex i. Return the new vertex. */
+    private int insert(int i, double[] d, double[] p)
+    {
+        ensureCapacity(n+1);
+        int j = n++;
+        points[2*j] = p[0];
+        points[2*j+1] = p[1];
+        dIn[2*j] = d[0];
+        dIn[2*j+1] = d[1];
+        dOut[2*j] = d[0];
+        dOut[2*j+1] = d[1];
+        next[j] = next[i];
+        next[i] = j;
+        computeEdge(i);
+        computeEdge(j);
+        return j;
+    }
+    
+    /* Compute the approximation of the edge beginning at vertex i: outer vertex (intersection of the support lines), normal and error.
+     * NB : a little error implies closed points and closed slopes. If the calculus is impossible, then the error is too small for the precision of double.
+     */
+    private void computeEdge(int i)
+    {
+        int k = next[i];
+        double p1x = points[2*i], p1y = points[2*i+1];
+        double p2x = points[2*k], p2y = points[2*k+1];
+        /* Intersection of the lines t*u1+p1 and tp*u2+p2, u1 and u2 "turning right" orthogonal vectors of the directions */
+        double u1x = dOut[2*i+1], u1y = -dOut[2*i];
+        double u2x = dIn[2*k+1], u2y = -dIn[2*k];
+        double det = u2x*u1y - u2y*u1x;
+        double tp = ((p2y-p1y)*u1x - (p2x-p1x)*u1y)/det;
+        double ox = u2x*tp + p2x;
+        double oy = u2y*tp + p2y;
+        outers[2*i] = ox;
+        outers[2*i+1] = oy;
+        /* "Turning right" normal of the edge, and error */
+        double nx = p2y - p1y;
+        double ny = -(p2x - p1x);
+        double normN = Math.sqrt(nx*nx + ny*ny);
+        /* Same inner vertices : the approximation is exact */
+        if (normN == 0)
+        {
+            errors[i] = 0;
+            return;
+        }
+        nx /= normN;
+        ny /= normN;
+        normals[2*i] = nx;
+        normals[2*i+1] = ny;
+        errors[i] = nx*(ox - p1x) + ny*(oy - p1y);
+    }
+    
+    /* Push the edge i in the heap (largest error on top). Return the new size. */
+    private int heapPush(int size, int i)
+    {
+        ensureWorkCapacity(size+1);
+        int c = size;
+        while (c > 0)
+        {
+            int p = (c-1)/2;
+            if (errors[work[p]] >= errors[i])
+                break;
+            work[c] = work[p];
+            c = p;
+        }
+        work[c] = i;
+        return size+1;
+    }
+    
+    /* Remove the top of the heap. Return the new size. */
+    private int heapPop(int size)
+    {
+        size--;
+        int last = work[size];
+        int c = 0;
+        while (2*c+1 < size)
+        {
+            int ch = 2*c+1;
+            if (ch+1 < size && errors[work[ch+1]] > errors[work[ch]])
+                ch++;
+            if (errors[work[ch]] <= errors[last])
+                break;
+            work[c] = work[ch];
+            c = ch;
+        }
+        work[c] = last;
+        return size;
+    }
+    
+    /* Grow the vertices arrays if necessary. */
+    private void ensureCapacity(int m)
+    {
+        if (m <= capacity)
+            return;
+        capacity = Math.max(m, 2*capacity);
+        points = Arrays.copyOf(points, 2*capacity);
+        dIn = Arrays.copyOf(dIn, 2*capacity);
+        dOut = Arrays.copyOf(dOut, 2*capacity);
+        normals = Arrays.copyOf(normals, 2*capacity);
+        outers = Arrays.copyOf(outers, 2*capacity);
+        errors = Arrays.copyOf(errors, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+    
+    /* Grow the batch buffers if necessary. */
+    private void ensureBatchCapacity(int m)
+    {
+        if (m <= batchValues.length)
+            return;
+        int c = Math.max(m, 2*batchValues.length);
+        batchDirs = new double[c][2];
+        batchValues = new double[c];
+        batchVectors = new double[c][2];
+    }
+    
+    /* Grow the stack/heap array if necessary. */
+    private void ensureWorkCapacity(int m)
+    {
+        if (m > work.length)
+            work = Arrays.copyOf(work, Math.max(m, 2*work.length));
+    }
+    
+    /* A task which evaluates the normals of the frontier with its own support function, taking them one by one from the shared cursor. */
+    private class FrontierTask extends RecursiveAction
+    {
+        public FrontierTask(SupportFunction psf, AtomicInteger cursor, int size)
+        {
+            this.psf = psf;
+            this.cursor = cursor;
+            this.size = size;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            int k;
+            while ((k = cursor.getAndIncrement()) < size)
+            {
+                psf.evaluate(batchDirs[k]);
+                batchValues[k] = psf.getSupportValue();
+                System.arraycopy(psf.getSupportVector(), 0, batchVectors[k], 0, 2);
+            }
+        }
+        
+        private final SupportFunction psf;
+        private final AtomicInteger cursor;
+        private final int size;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    /* A task which runs the frontier tasks. */
+    private static class FrontierTasks extends RecursiveAction
+    {
+        public FrontierTasks(FrontierTask[] ts)
+        {
+            this.ts = ts;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            invokeAll(ts);
+        }
+        
+        private final FrontierTask[] ts;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    private int n = 0;
+    private int capacity = 16;
+    private double[] points, dIn, dOut, normals, outers, errors;
+    private int[] next, work;
+    private double[][] batchDirs = new double[0][];
+    private double[] batchValues = new double[0];
+    private double[][] batchVectors = new double[0][];
+    private final double[] dir = new double[2];
+}
@@ -0,0 +1,188 @@
+/** Polygonal Planar Projection LIBrary (3plib) v0.1.0
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: ask3plib@gmail.com
+ **
+ ** This file is part of 3plib.
+ **
+ ** 3plib is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** 3plib is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with 3plib. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.ppplib.proj;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/** Configuration of the threads used by a projector: a parallelism level, a fork/join pool supplied by the caller, or one lightweight task per convex set (virtual threads) with a bounded concurrency. The pools (and the executors of the tasks) created for a parallelism level are shared by all the configurations of the same level, so their threads are reused from one projection to another (and from one projector to another).
+ **/
+
+public final class ThreadsConfiguration
+{
+    /** Create a new configuration with a given parallelism level. A parallelism of 1 means sequential computations in the calling thread.
+     ** @param parallelism the number of threads.
+     ** @exception ConvexSetProjectorException thrown if the parallelism is negative or zero.
+     **/
+    public ThreadsConfiguration(int parallelism)
+    {
+        if (parallelism < 1)
+            throw new ConvexSetProjectorException(parMessage);
+        this.parallelism = parallelism;
+        this.pool = null;
+        this.tasks = false;
+    }
+    
+    /** Create a new configuration using the given fork/join pool. The pool is never shut down by the projectors.
+     ** @param pool the pool.
+     **/
+    public ThreadsConfiguration(ForkJoinPool pool)
+    {
+        this.parallelism = pool.getParallelism();
+        this.pool = pool;
+        this.tasks = false;
+    }
+    
+    /* Create a new configuration with one task per convex set */
+    private ThreadsConfiguration(int maxConcurrency, boolean tasks)
+    {
+        this.parallelism = maxConcurrency;
+        this.pool = null;
+        this.tasks = tasks;
+    }
+    
+    /** Give a configuration where the projectors of unions run one task per convex set, on virtual threads if the Java runtime provides them (otherwise on a pool of maxConcurrency daemon threads). At most maxConcurrency sets are projected at the same time, which bounds the memory. The projection of each convex set is sequential.
+     ** @param maxConcurrency the maximum number of sets projected at the same time.
+     ** @return the configuration.
+     ** @exception ConvexSetProjectorException thrown if maxConcurrency is negative or zero.
+     **/
+    public static ThreadsConfiguration virtualThreads(int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+            throw new ConvexSetProjectorException(parMessage);
+        return new ThreadsConfiguration(maxConcurrency, true);
+    }
+    
+    /** Give the configuration associated to a ThreadsNumber.
+     ** @param tn the threads number.
+     ** @return the configuration.
+     **/
+    public static ThreadsConfiguration valueOf(ThreadsNumber tn)
+    {
+        switch (tn)
+        {
+            case TN_2:
+                return new ThreadsConfiguration(2);
+            case TN_4:
+                return new ThreadsConfiguration(4);
+            case TN_ALL:
+                return new ThreadsConfiguration(Runtime.getRuntime().availableProcessors());
+            default:
+                return new ThreadsConfiguration(1);
+        }
+    }
+    
+    /** Give the parallelism level (the maximum number of concurrent tasks for a configuration with one task per set).
+     ** @return the number of threads.
+     **/
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+    
+    /** State if the computations are sequential (in the calling thread).
+     ** @return the statement.
+     **/
+    public boolean isSequential()
+    {
+        return pool == null && parallelism == 1 && !tasks;
+    }
+    
+    /** Give the executor of the tasks, for a configuration with one task per convex set: the shared executor of its maximum concurrency. Its threads are virtual or daemon, so it is never shut down.
+     ** @return the executor, null if this configuration doesn't run one task per set.
+     **/
+    public ExecutorService getExecutor()
+    {
+        if (!tasks)
+            return null;
+        return sharedExecutor(parallelism);
+    }
+    
+    /** Give the fork/join pool of this configuration: the pool supplied by the caller, or the shared pool of the parallelism level.
+     ** @return the pool, null if the computations are sequential or if this configuration runs one task per set.
+     **/
+    public ForkJoinPool getPool()
+    {
+        if (pool != null)
+            return pool;
+        if (parallelism == 1 || tasks)
+            return null;
+        return sharedPool(parallelism);
+    }
+    
+    /* Give the shared pool for a parallelism level (created at the first call) */
+    private static synchronized ForkJoinPool sharedPool(int parallelism)
+    {
+        ForkJoinPool res = sharedPools.get(parallelism);
+        if (res == null)
+        {
+            res = new ForkJoinPool(parallelism);
+            sharedPools.put(parallelism, res);
+        }
+        return res;
+    }
+    
+    /* Give the shared executor of the tasks for a maximum concurrency (created at the first call) */
+    private static synchronized ExecutorService sharedExecutor(int threads)
+    {
+        ExecutorService res = sharedExecutors.get(threads);
+        if (res == null)
+        {
+            res = newTasksExecutor(threads);
+            sharedExecutors.put(threads, res);
+        }
+        return res;
+    }
+    
+    /* Give an executor starting a virtual thread for each task (found by reflection, so that older runtimes can be used), or a pool of daemon threads */
+    private static ExecutorService newTasksExecutor(int threads)
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newFixedThreadPool(threads, new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    Thread t = new Thread(r);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+    
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final boolean tasks;
+    private static final Map <Integer, ForkJoinPool> sharedPools = new HashMap <Integer, ForkJoinPool>();
+    private static final Map <Integer, ExecutorService> sharedExecutors = new HashMap <Integer, ExecutorService>();
+    private static final String parMessage = "The parallelism cannot be negative or zero.";
+}
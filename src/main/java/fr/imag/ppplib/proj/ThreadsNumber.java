@@ -21,12 +21,13 @@
 
 package fr.imag.ppplib.proj;
 
-/** A simple enum to choose the threads number.
+/** A simple enum to choose the threads number. TN_ALL uses as many threads as available processors. See ThreadsConfiguration for any other parallelism level or a custom pool.
  **/
 
 public enum ThreadsNumber
 {
     TN_1,
     TN_2,
-    TN_4
+    TN_4,
+    TN_ALL
 }
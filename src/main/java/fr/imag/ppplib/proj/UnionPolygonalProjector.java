@@ -28,6 +28,11 @@ import fr.imag.ppplib.proj.plg.Polygon;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
 
 /** An implementation of PolygonalProjector, to compute the projection of a union of convex sets described by their support function.
  **/
@@ -49,41 +54,61 @@ public class UnionPolygonalProjector implements PolygonalProjector
         this.ignoreImpossible = ignoreImpossible;
     }
     
+    /** Create a new UnionPolygonalProjector which projects the convex sets concurrently, with a custom behavior for the sets that are impossible to project. The order of the results is the order of the sets. With ThreadsConfiguration.virtualThreads, each set is projected by its own lightweight task.
+     ** @param ignoreImpossible choice for behavior.
+     ** @param tc the threads configuration (sequential computations if it is sequential).
+     **/
+    public UnionPolygonalProjector(boolean ignoreImpossible, ThreadsConfiguration tc)
+    {
+        this.ignoreImpossible = ignoreImpossible;
+        this.tc = tc;
+    }
+    
     @Override
     public void computeProjection(List <? extends SupportFunction> convSets, ProjectionCalculator pc, ErrorType et, double err)
     {
-        /* Initialization */
+        /* Initialization : each set has its own slot in the result arrays, so that the threads don't need any lock */
         int n = convSets.size();
-        innerPolygons = new ArrayList <Polygon>(n);
-        outerPolygons = new ArrayList <Polygon>(n);
-        int d = convSets.get(0).getDimension();
+        SupportFunction[] sets = convSets.toArray(new SupportFunction[n]);
+        Polygon[] inner = new Polygon[n];
+        Polygon[] outer = new Polygon[n];
+        RuntimeException[] failures = new RuntimeException[n];
+        failed = false;
+        partial = false;
         ConvexSetProjector csp = ImplementationFactory.getNewConvexSetProjector();
-        
-        /* Computations in function of the choosen behavior */
-        if (ignoreImpossible)
-        {
-            for (SupportFunction sf : convSets)
+        /* With warm start, each set has its own projector, which keeps its refinement state */
+        if (warmStart)
+            while (projectors.size() < n)
             {
-                try
-                {
-                    if (sf.getDimension() != d)
-                        throw new PolygonalProjectorException(nsvsMessage);
-                    csp.computeProjection(sf, pc, et, err);
-                    innerPolygons.add(csp.getInnerPolygon());
-                    outerPolygons.add(csp.getOuterPolygon());
-                }
-                catch (ConvexSetProjectorException e){}
+                ConvexSetProjector p = csp.newInstance();
+                p.setWarmStart(true);
+                projectors.add(p);
             }
-        }
+        
+        /* Computations : sequential, or one task per set on the executor, or by ranges of sets over the fork/join pool */
+        int d = sets[0].getDimension();
+        if (tc.getExecutor() != null)
+            projectByTasks(tc.getExecutor(), sets, d, pc, et, err, csp, inner, outer, failures);
         else
         {
-            for (SupportFunction sf : convSets)
+            ProjectionTask task = new ProjectionTask(sets, d, pc, et, err, csp, inner, outer, failures, 0, n);
+            if (tc.isSequential())
+                task.project();
+            else
+                tc.getPool().invoke(task);
+        }
+        
+        /* Results in the order of the sets : the first failure is thrown, the impossible sets are ignored in function of the choosen behavior */
+        innerPolygons = new ArrayList <Polygon>(n);
+        outerPolygons = new ArrayList <Polygon>(n);
+        for (int i = 0 ; i < n ; i++)
+        {
+            if (failures[i] != null)
+                throw failures[i];
+            if (inner[i] != null)
             {
-                if (sf.getDimension() != d)
-                    throw new PolygonalProjectorException(nsvsMessage);
-                csp.computeProjection(sf, pc, et, err);
-                innerPolygons.add(csp.getInnerPolygon());
-                outerPolygons.add(csp.getOuterPolygon());
+                innerPolygons.add(inner[i]);
+                outerPolygons.add(outer[i]);
             }
         }
         
@@ -91,6 +116,39 @@ public class UnionPolygonalProjector implements PolygonalProjector
         evaluated = true;
     }   
     
+    @Override
+    public void addProjectionListener(ProjectionListener l)
+    {
+        listeners.add(l);
+    }
+    
+    @Override
+    public void removeProjectionListener(ProjectionListener l)
+    {
+        listeners.remove(l);
+    }
+    
+    @Override
+    public void setWarmStart(boolean warmStart)
+    {
+        this.warmStart = warmStart;
+        projectors.clear();
+    }
+    
+    @Override
+    public void setProjectionControl(ProjectionControl control)
+    {
+        this.control = control;
+    }
+    
+    @Override
+    public boolean isPartial()
+    {
+        if (!evaluated)
+            throw new PolygonalProjectorException(nyeMessage);
+        return partial;
+    }
+    
     @Override
     public List <Polygon> getInnerPolygons()
     {
@@ -113,10 +171,192 @@ public class UnionPolygonalProjector implements PolygonalProjector
         return evaluated;
     }
     
+    /* Project each set in its own task on the executor. At most tc.getParallelism() tasks exist at the same time : the submission waits for a free permit. */
+    private void projectByTasks(ExecutorService executor, SupportFunction[] sets, int d, ProjectionCalculator pc, ErrorType et, double err, ConvexSetProjector csp, Polygon[] inner, Polygon[] outer, RuntimeException[] failures)
+    {
+        final int permits = tc.getParallelism();
+        final Semaphore semaphore = new Semaphore(permits);
+        try
+        {
+            for (int i = 0 ; i < sets.length && !failed ; i++)
+            {
+                /* Stopped : the remaining sets are not submitted */
+                if (stopped())
+                {
+                    partial = true;
+                    break;
+                }
+                final ProjectionTask task = new ProjectionTask(sets, d, pc, et, err, csp, inner, outer, failures, i, i+1);
+                semaphore.acquire();
+                try
+                {
+                    executor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            try
+                            {
+                                task.project();
+                            }
+                            finally
+                            {
+                                semaphore.release();
+                            }
+                        }
+                    });
+                }
+                catch (RejectedExecutionException e)
+                {
+                    semaphore.release();
+                    throw e;
+                }
+            }
+            /* Wait for the end of the last tasks */
+            semaphore.acquire(permits);
+            semaphore.release(permits);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            failed = true;
+            throw new PolygonalProjectorException(intMessage);
+        }
+    }
+    
+    /* A fork/join task which projects a range of sets, and writes the results in their slots. The range is split until it is small enough for the parallelism, then each leaf works with its own projector and its own projection calculator. */
+    private class ProjectionTask extends RecursiveAction
+    {
+        /* Create a new task for the sets lo to hi (excluded). */
+        public ProjectionTask(SupportFunction[] sets, int d, ProjectionCalculator pc, ErrorType et, double err, ConvexSetProjector csp, Polygon[] inner, Polygon[] outer, RuntimeException[] failures, int lo, int hi)
+        {
+            this.sets = sets;
+            this.d = d;
+            this.pc = pc;
+            this.et = et;
+            this.err = err;
+            this.csp = csp;
+            this.inner = inner;
+            this.outer = outer;
+            this.failures = failures;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > Math.max(1, sets.length / (8 * tc.getParallelism())))
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ProjectionTask(sets, d, pc, et, err, csp, inner, outer, failures, lo, mid),
+                          new ProjectionTask(sets, d, pc, et, err, csp, inner, outer, failures, mid, hi));
+            }
+            else
+                project();
+        }
+        
+        /* Project the sets of the range, in the current thread. It stops at the first failure (which is not ignored), or when the control is stopped. */
+        public void project()
+        {
+            ProjectionCalculator lpc = tc.isSequential() ? pc : pc.clone();
+            ConvexSetProjector p = csp.newInstance();
+            p.setProjectionControl(control);
+            ForwardingListener fl = new ForwardingListener();
+            boolean forward = !listeners.isEmpty();
+            if (forward && !warmStart)
+                p.addProjectionListener(fl);
+            for (int i = lo ; i < hi && !failed ; i++)
+            {
+                /* Stopped : the remaining sets of the range keep an empty slot */
+                if (stopped())
+                {
+                    partial = true;
+                    break;
+                }
+                fl.index = i;
+                if (warmStart)
+                {
+                    p = projectors.get(i);
+                    p.setProjectionControl(control);
+                    if (forward)
+                        p.addProjectionListener(fl);
+                }
+                try
+                {
+                    if (sets[i].getDimension() != d)
+                        throw new PolygonalProjectorException(nsvsMessage);
+                    p.computeProjection(sets[i], lpc, et, err);
+                    inner[i] = p.getInnerPolygon();
+                    outer[i] = p.getOuterPolygon();
+                    if (p.isPartial())
+                        partial = true;
+                }
+                catch (ConvexSetProjectorException e)
+                {
+                    if (!ignoreImpossible)
+                    {
+                        failures[i] = e;
+                        failed = true;
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    failures[i] = e;
+                    failed = true;
+                }
+                finally
+                {
+                    if (warmStart && forward)
+                        p.removeProjectionListener(fl);
+                }
+            }
+        }
+        
+        private final SupportFunction[] sets;
+        private final int d;
+        private final ProjectionCalculator pc;
+        private final ErrorType et;
+        private final double err;
+        private final ConvexSetProjector csp;
+        private final Polygon[] inner;
+        private final Polygon[] outer;
+        private final RuntimeException[] failures;
+        private final int lo;
+        private final int hi;
+        private static final long serialVersionUID = 1L;
+    }
+    
+    /* State if the computation has to stop */
+    private boolean stopped()
+    {
+        return control != null && control.isStopped();
+    }
+    
+    /* A listener which forwards the approximations of the ConvexSetProjector to the listeners of this projector, with the index of the current set */
+    private class ForwardingListener implements ProjectionListener
+    {
+        @Override
+        public void approximationUpdated(int i, Polygon inner, Polygon outer, double error)
+        {
+            for (ProjectionListener l : listeners) l.approximationUpdated(index, inner, outer, error);
+        }
+        
+        private int index = -1;
+    }
+    
     private List <Polygon> innerPolygons;
     private List <Polygon> outerPolygons;
     private boolean evaluated = false;
+    private volatile boolean failed;
+    private volatile boolean partial;
+    private ProjectionControl control;
+    private boolean warmStart = false;
+    private List <ConvexSetProjector> projectors = new ArrayList <ConvexSetProjector>();
+    private List <ProjectionListener> listeners = new CopyOnWriteArrayList <ProjectionListener>();
     private final boolean ignoreImpossible;
+    private ThreadsConfiguration tc = new ThreadsConfiguration(1);
     private static final String nsvsMessage = "A convex set of the given list doesn't live in the same vectorspace than the others.";
+    private static final String intMessage = "The projection has been interrupted.";
     private static final String nyeMessage = "This PolygonalProjector has not been yet evaluated.";
 }